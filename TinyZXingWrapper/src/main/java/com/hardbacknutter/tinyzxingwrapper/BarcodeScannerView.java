@@ -0,0 +1,248 @@
+package com.hardbacknutter.tinyzxingwrapper;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.view.PreviewView;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.hardbacknutter.tinyzxingwrapper.scanner.BarcodeScanner;
+import com.hardbacknutter.tinyzxingwrapper.scanner.DecoderResultListener;
+import com.hardbacknutter.tinyzxingwrapper.scanner.ScanMode;
+import com.hardbacknutter.tinyzxingwrapper.scanner.TzwViewfinderView;
+
+/**
+ * An embeddable scanner: a camera preview with the viewfinder overlay,
+ * and a long-lived {@link BarcodeScanner}.
+ * <p>
+ * An alternative to {@link CaptureActivity} for screens which scan inline;
+ * results are delivered in-process and the camera keeps running between scans.
+ * In {@link ScanMode#Single} (the default), the scanner pauses after each result;
+ * call {@link #resume()} to scan the next barcode.
+ * <p>
+ * Configure with the same {@link ScanOptions} as used for the {@link ScanContract},
+ * before calling {@link #start(LifecycleOwner, DecoderResultListener)}.
+ * The caller is responsible for obtaining the camera permission.
+ * <p>
+ * The options which only apply to the {@link CaptureActivity} (e.g. the timeouts,
+ * the prompt and the returned meta-data) are ignored.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BarcodeScannerView
+        extends FrameLayout {
+
+    @NonNull
+    private final PreviewView previewView;
+    @NonNull
+    private final TzwViewfinderView viewFinderView;
+
+    @Nullable
+    private Bundle options;
+    @Nullable
+    private ScanMode scanMode;
+    /** Built on the first start, and kept until the lifecycle is destroyed. */
+    @Nullable
+    private BarcodeScanner scanner;
+    private boolean torchEnabled;
+
+    /**
+     * Simple constructor to use when creating a view from code.
+     *
+     * @param context The Context the view is running in
+     */
+    public BarcodeScannerView(@NonNull final Context context) {
+        this(context, null);
+    }
+
+    /**
+     * Constructor that is called when inflating a view from XML.
+     *
+     * @param context The Context the view is running in
+     * @param attrs   The attributes of the XML tag that is inflating the view.
+     */
+    public BarcodeScannerView(@NonNull final Context context,
+                              @Nullable final AttributeSet attrs) {
+        super(context, attrs);
+        LayoutInflater.from(context).inflate(R.layout.tzw_view_scanner, this, true);
+        previewView = findViewById(R.id.tzw_preview);
+        viewFinderView = findViewById(R.id.tzw_viewfinder_view);
+    }
+
+    /**
+     * Set the options. Only takes effect if called before the first
+     * {@link #start(LifecycleOwner, DecoderResultListener)}.
+     *
+     * @param scanOptions to use
+     */
+    public void setOptions(@NonNull final ScanOptions scanOptions) {
+        setOptions(scanOptions.getExtras());
+    }
+
+    /**
+     * Set the options. Only takes effect if called before the first
+     * {@link #start(LifecycleOwner, DecoderResultListener)}.
+     *
+     * @param args a Bundle with {@link ScanOptions.Option} keys and/or hints
+     */
+    public void setOptions(@Nullable final Bundle args) {
+        options = args != null ? new Bundle(args) : null;
+        if (options != null) {
+            torchEnabled = options.getBoolean(ScanOptions.Option.TORCH_ENABLED, false);
+        }
+    }
+
+    /**
+     * Set the {@link ScanMode}. Only takes effect if called before the first
+     * {@link #start(LifecycleOwner, DecoderResultListener)}.
+     * The default is {@link ScanMode#Single}; or {@link ScanMode#Bulk}
+     * if set in the options.
+     *
+     * @param mode to use
+     */
+    public void setScanMode(@NonNull final ScanMode mode) {
+        scanMode = mode;
+    }
+
+    /**
+     * Start scanning. The scanner is stopped and released when the lifecycle
+     * of the owner is destroyed; a later start builds a new scanner.
+     *
+     * @param lifecycleOwner the caller; e.g. a Fragment's view lifecycle owner
+     * @param resultListener to receive the results
+     */
+    public void start(@NonNull final LifecycleOwner lifecycleOwner,
+                      @NonNull final DecoderResultListener resultListener) {
+        BarcodeScanner current = scanner;
+        if (current == null) {
+            current = createScanner();
+            scanner = current;
+
+            final BarcodeScanner created = current;
+            lifecycleOwner.getLifecycle().addObserver(created);
+            lifecycleOwner.getLifecycle().addObserver((LifecycleEventObserver)
+                    (source, event) -> {
+                        if (event == Lifecycle.Event.ON_DESTROY && scanner == created) {
+                            scanner = null;
+                        }
+                    });
+        }
+        current.start(lifecycleOwner, previewView, resultListener);
+    }
+
+    @NonNull
+    private BarcodeScanner createScanner() {
+        final BarcodeScanner.Builder builder = new BarcodeScanner.Builder()
+                // Keep the camera running between scans
+                .setPauseOnResult(true);
+        if (options != null) {
+            builder.addHints(options)
+                   .addOptions(options);
+        }
+        if (scanMode != null) {
+            builder.setScanMode(scanMode);
+        }
+
+        final BarcodeScanner newScanner = builder.build(getContext());
+        newScanner.setTorch(torchEnabled);
+        // only set if present, otherwise let the device decide.
+        if (options != null && options.containsKey(ScanOptions.Option.CAMERA_LENS_FACING)) {
+            newScanner.setCameraLensFacing(options.getInt(ScanOptions.Option.CAMERA_LENS_FACING,
+                                                          CameraSelector.LENS_FACING_BACK));
+        }
+        if (viewFinderView.isShowResultPoints()) {
+            newScanner.setResultPointListener(viewFinderView);
+        }
+        return newScanner;
+    }
+
+    /**
+     * Pause scanning; the camera preview keeps running.
+     *
+     * @return {@code true} if paused
+     *
+     * @see BarcodeScanner#pause()
+     */
+    public boolean pause() {
+        return scanner != null && scanner.pause();
+    }
+
+    /**
+     * Resume scanning; e.g. to scan the next barcode in {@link ScanMode#Single}.
+     *
+     * @return {@code true} if resumed
+     *
+     * @see BarcodeScanner#resume()
+     */
+    public boolean resume() {
+        return scanner != null && scanner.resume();
+    }
+
+    /**
+     * Stop scanning, and release the camera.
+     * Use {@link #start(LifecycleOwner, DecoderResultListener)} to restart.
+     */
+    public void stop() {
+        if (scanner != null) {
+            scanner.stop();
+        }
+    }
+
+    /**
+     * Switch the torch (flashlight) on or off.
+     *
+     * @param enable flag
+     */
+    public void setTorch(final boolean enable) {
+        torchEnabled = enable;
+        if (scanner != null) {
+            scanner.setTorch(enable);
+        }
+    }
+
+    /**
+     * Check whether the torch is switched on.
+     *
+     * @return flag
+     */
+    public boolean isTorchEnabled() {
+        return torchEnabled;
+    }
+
+    /**
+     * Get the scanner; e.g. to access the metrics.
+     *
+     * @return the scanner, or {@code null} if not started
+     */
+    @Nullable
+    public BarcodeScanner getScanner() {
+        return scanner;
+    }
+
+    /**
+     * Get the preview.
+     *
+     * @return view
+     */
+    @NonNull
+    public PreviewView getPreviewView() {
+        return previewView;
+    }
+
+    /**
+     * Get the viewfinder overlay.
+     *
+     * @return view
+     */
+    @NonNull
+    public TzwViewfinderView getViewFinderView() {
+        return viewFinderView;
+    }
+}
@@ -6,10 +6,12 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.TextView;
 
+import androidx.activity.OnBackPressedCallback;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
@@ -22,8 +24,12 @@ import androidx.core.content.ContextCompat;
 import com.google.android.material.button.MaterialButton;
 import com.google.zxing.Result;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import com.hardbacknutter.tinyzxingwrapper.scanner.BarcodeScanner;
 import com.hardbacknutter.tinyzxingwrapper.scanner.DecoderResultListener;
@@ -55,11 +61,29 @@ public class CaptureActivity
     private Integer lensFacing;
     @Nullable
     private List<String> metaDataToReturn;
+    private boolean bulkMode;
+    /** The barcodes collected in bulk mode; in the order they were first scanned. */
+    private final Map<String, ScanIntentResult.BulkEntry> tally = new LinkedHashMap<>();
+    /** The bulk mode duplicate time-to-live; {@code 0} to count each barcode only once. */
+    private long bulkDuplicateTtlMs;
+    /**
+     * The tally keys restored after a configuration change. The new scanner starts
+     * without any memory of them, and will report them again while still in view.
+     */
+    private final Set<String> restoredKeys = new HashSet<>();
+    /** When the {@link #restoredKeys} were restored. */
+    private long restoredAtMs;
 
     private final DecoderResultListener decoderResultListener = new DecoderResultListener() {
         @Override
         public void onResult(@NonNull final Result result) {
             final String text = result.getText();
+            if (bulkMode) {
+                if (text != null && !text.isBlank()) {
+                    addToTally(text, result);
+                }
+                return;
+            }
             if (text != null && !text.isBlank()) {
                 final Intent intent = ScanIntentResult.createActivityResultIntent(
                         CaptureActivity.this, result, metaDataToReturn);
@@ -105,15 +129,18 @@ public class CaptureActivity
         previewView = Objects.requireNonNull(view, "Missing R.id.tzw_preview");
 
 
-        // Note that the ScanMode is kept as default (Single)
+        // Note that the ScanMode is kept as default (Single) unless bulk mode is requested,
         // and that we always use the default DecoderFactory
         final BarcodeScanner.Builder builder = new BarcodeScanner.Builder();
 
         Bundle args = getIntent().getExtras();
         if (args != null) {
             metaDataToReturn = args.getStringArrayList(ScanOptions.Option.RETURN_META_DATA);
+            bulkMode = args.getBoolean(ScanOptions.Option.BULK_MODE);
+            bulkDuplicateTtlMs = args.getLong(ScanOptions.Option.BULK_DUPLICATE_TTL_MS, 0);
 
-            builder.addHints(args);
+            builder.addHints(args)
+                   .addOptions(args);
         }
         scanner = builder.build(this);
 
@@ -142,6 +169,9 @@ public class CaptureActivity
 
         getLifecycle().addObserver(scanner);
 
+        if (bulkMode) {
+            initBulkMode(savedInstanceState);
+        }
         initTorchButton();
         initStatusText(args);
         initTimeoutHandlers();
@@ -172,6 +202,87 @@ public class CaptureActivity
         if (hardTimeOutInMs > TIMEOUT_NOT_SET) {
             outState.putLong(Option.TIMEOUT_MS, hardTimeOutInMs);
         }
+        if (!tally.isEmpty()) {
+            ScanIntentResult.putBulkEntries(outState, tally.values());
+        }
+    }
+
+    /**
+     * Restore the tally, and return it when the user leaves the screen.
+     *
+     * @param savedInstanceState the saved state, if any
+     */
+    private void initBulkMode(@Nullable final Bundle savedInstanceState) {
+        ScanIntentResult.getBulkEntries(savedInstanceState)
+                        .forEach(entry -> tally.put(getTallyKey(entry.getFormat().name(),
+                                                                entry.getText()), entry));
+        restoredKeys.addAll(tally.keySet());
+        restoredAtMs = SystemClock.elapsedRealtime();
+
+        getOnBackPressedDispatcher().addCallback(this, new OnBackPressedCallback(true) {
+            @Override
+            public void handleOnBackPressed() {
+                if (!finishWithTally()) {
+                    setEnabled(false);
+                    getOnBackPressedDispatcher().onBackPressed();
+                }
+            }
+        });
+    }
+
+    @NonNull
+    private static String getTallyKey(@NonNull final String format,
+                                      @NonNull final String text) {
+        return format + ':' + text;
+    }
+
+    private void addToTally(@NonNull final String text,
+                            @NonNull final Result result) {
+        final String key = getTallyKey(result.getBarcodeFormat().name(), text);
+        final ScanIntentResult.BulkEntry entry = tally.get(key);
+        if (entry == null) {
+            tally.put(key, new ScanIntentResult.BulkEntry(text, result.getBarcodeFormat(), 1));
+        } else if (!isRestoredDuplicate(key)) {
+            entry.increment();
+        }
+        // The user is clearly active
+        if (inactivityTimer != null) {
+            inactivityTimer.reset();
+        }
+    }
+
+    /**
+     * Check if a barcode which is already in the tally is only reported again
+     * because the scanner was recreated; e.g. after a rotation.
+     *
+     * @param key of the tally entry
+     *
+     * @return {@code true} if it should not be counted again
+     */
+    private boolean isRestoredDuplicate(@NonNull final String key) {
+        if (bulkDuplicateTtlMs <= 0) {
+            // Without a ttl each barcode is only counted once anyhow
+            return true;
+        }
+        // The first report after the restore; it was last counted at most a ttl ago.
+        return restoredKeys.remove(key)
+               && SystemClock.elapsedRealtime() - restoredAtMs < bulkDuplicateTtlMs;
+    }
+
+    /**
+     * In bulk mode, finish with the tally as the result.
+     *
+     * @return {@code true} if finished; {@code false} if not in bulk mode
+     *         or nothing was scanned
+     */
+    private boolean finishWithTally() {
+        if (bulkMode && !tally.isEmpty()) {
+            setResult(Activity.RESULT_OK,
+                      ScanIntentResult.createBulkResultIntent(this, tally.values()));
+            finish();
+            return true;
+        }
+        return false;
     }
 
     private void initTorchButton() {
@@ -229,6 +340,9 @@ public class CaptureActivity
         if (inactivityTimeOutInMs != 0) {
             // enabled the timer using the default or the specified setting
             inactivityTimer = new InactivityTimer(this, () -> {
+                if (finishWithTally()) {
+                    return;
+                }
                 setResult(Activity.RESULT_CANCELED,
                           new Intent().putExtra(ScanIntentResult.Failure.FAILURE_REASON,
                                                 ScanIntentResult.Failure.REASON_INACTIVITY));
@@ -244,6 +358,9 @@ public class CaptureActivity
         // only enabled if explicitly set
         if (hardTimeOutInMs > 0) {
             new Handler().postDelayed(() -> {
+                if (finishWithTally()) {
+                    return;
+                }
                 setResult(Activity.RESULT_CANCELED,
                           new Intent().putExtra(ScanIntentResult.Failure.FAILURE_REASON,
                                                 ScanIntentResult.Failure.REASON_TIMEOUT));
@@ -85,7 +85,7 @@ final class InactivityTimer
     /**
      * Reset the timer, and trigger the callback.
      */
-    private void reset() {
+    void reset() {
         handler.removeCallbacksAndMessages(null);
         if (startTimer) {
             handler.postDelayed(callback, inactivityDelayMs);
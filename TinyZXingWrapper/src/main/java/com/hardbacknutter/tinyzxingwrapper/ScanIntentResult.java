@@ -3,6 +3,7 @@ package com.hardbacknutter.tinyzxingwrapper;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Bundle;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -11,6 +12,8 @@ import com.google.zxing.BarcodeFormat;
 import com.google.zxing.Result;
 import com.google.zxing.ResultMetadataType;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -141,6 +144,109 @@ public final class ScanIntentResult {
         return intent;
     }
 
+    /**
+     * Encode an intent to return the tally of a bulk scan as the Activity result.
+     * <p>
+     * Will contain {@link Success#BARCODE_TEXT} and {@link Success#BARCODE_FORMAT}
+     * of the last entry, and the full tally using the {@code Success.BULK_*} keys.
+     *
+     * @param context Current context
+     * @param entries the tally; must not be empty
+     *
+     * @return the Intent
+     */
+    @NonNull
+    public static Intent createBulkResultIntent(@SuppressWarnings("unused")
+                                                @NonNull final Context context,
+                                                @NonNull final Collection<BulkEntry> entries) {
+        BulkEntry last = null;
+        for (final BulkEntry entry : entries) {
+            last = entry;
+        }
+        if (last == null) {
+            throw new IllegalArgumentException("entries must not be empty");
+        }
+
+        final Bundle bundle = new Bundle();
+        putBulkEntries(bundle, entries);
+        return new Intent()
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_DOCUMENT)
+                .putExtra(Success.BARCODE_TEXT, last.getText())
+                .putExtra(Success.BARCODE_FORMAT, last.getFormat().toString())
+                .putExtras(bundle);
+    }
+
+    /**
+     * Store a tally in the compact {@code Success.BULK_*} encoding.
+     *
+     * @param bundle  to write to
+     * @param entries to write
+     */
+    static void putBulkEntries(@NonNull final Bundle bundle,
+                               @NonNull final Collection<BulkEntry> entries) {
+        final String[] texts = new String[entries.size()];
+        final byte[] formats = new byte[entries.size()];
+        final int[] counts = new int[entries.size()];
+        int i = 0;
+        for (final BulkEntry entry : entries) {
+            texts[i] = entry.getText();
+            formats[i] = (byte) entry.getFormat().ordinal();
+            counts[i] = entry.getCount();
+            i++;
+        }
+        bundle.putStringArray(Success.BULK_TEXTS, texts);
+        bundle.putByteArray(Success.BULK_FORMATS, formats);
+        bundle.putIntArray(Success.BULK_COUNTS, counts);
+    }
+
+    /**
+     * Read a tally from the compact {@code Success.BULK_*} encoding.
+     *
+     * @param bundle to read from
+     *
+     * @return the entries; empty if none, or the data is invalid
+     */
+    @NonNull
+    static List<BulkEntry> getBulkEntries(@Nullable final Bundle bundle) {
+        final List<BulkEntry> entries = new ArrayList<>();
+        if (bundle == null) {
+            return entries;
+        }
+        final String[] texts = bundle.getStringArray(Success.BULK_TEXTS);
+        final byte[] formats = bundle.getByteArray(Success.BULK_FORMATS);
+        final int[] counts = bundle.getIntArray(Success.BULK_COUNTS);
+        if (texts == null || formats == null || counts == null
+            || formats.length != texts.length || counts.length != texts.length) {
+            return entries;
+        }
+
+        final BarcodeFormat[] values = BarcodeFormat.values();
+        for (int i = 0; i < texts.length; i++) {
+            final int ordinal = formats[i] & 0xff;
+            if (texts[i] != null && ordinal < values.length) {
+                entries.add(new BulkEntry(texts[i], values[ordinal], counts[i]));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * If this was a bulk scan, get the tally of the barcodes scanned,
+     * in the order they were first scanned.
+     *
+     * @return the tally; empty if none
+     *
+     * @see ScanOptions#setBulkMode(boolean)
+     */
+    @NonNull
+    public List<BulkEntry> getBulkEntries() {
+        if (success) {
+            //noinspection DataFlowIssue
+            return getBulkEntries(intent.getExtras());
+        }
+        return new ArrayList<>();
+    }
+
     /**
      * The scan is considered successful if we have a barcode text.
      *
@@ -244,6 +350,79 @@ public final class ScanIntentResult {
                + '}';
     }
 
+    /**
+     * A single entry in the tally of a bulk scan.
+     */
+    public static final class BulkEntry {
+
+        @NonNull
+        private final String text;
+        @NonNull
+        private final BarcodeFormat format;
+        private int count;
+
+        /**
+         * Constructor.
+         *
+         * @param text   of the barcode
+         * @param format of the barcode
+         * @param count  how often the barcode was scanned
+         */
+        public BulkEntry(@NonNull final String text,
+                         @NonNull final BarcodeFormat format,
+                         final int count) {
+            this.text = text;
+            this.format = format;
+            this.count = count;
+        }
+
+        /**
+         * Get the text of the barcode.
+         *
+         * @return text
+         */
+        @NonNull
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Get the format of the barcode.
+         *
+         * @return format
+         */
+        @NonNull
+        public BarcodeFormat getFormat() {
+            return format;
+        }
+
+        /**
+         * Get how often the barcode was scanned.
+         *
+         * @return count
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Count another scan of this barcode.
+         */
+        void increment() {
+            count++;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "BulkEntry{"
+                   + "text=`" + text + '`'
+                   + ", format=" + format
+                   + ", count=" + count
+                   + '}';
+        }
+    }
+
     /**
      * Bundle keys for returning a successful scan result.
      */
@@ -264,6 +443,35 @@ public final class ScanIntentResult {
          */
         public static final String BARCODE_FORMAT = "BARCODE_FORMAT";
 
+        /**
+         * Bulk scan: the texts of the barcodes.
+         * <p>
+         * Type: String[]
+         *
+         * @see #getBulkEntries()
+         */
+        public static final String BULK_TEXTS = "BULK_TEXTS";
+
+        /**
+         * Bulk scan: the formats of the barcodes; one for each text.
+         * <p>
+         * Type: byte[]; the ordinal of each {@link com.google.zxing.BarcodeFormat}.
+         *
+         * @see #getBulkEntries()
+         */
+        public static final String BULK_FORMATS = "BULK_FORMATS";
+
+        /**
+         * Bulk scan: how often each barcode was scanned; one for each text.
+         * Always {@code 1}, unless a duplicate time-to-live was set.
+         * <p>
+         * Type: int[]
+         *
+         * @see #getBulkEntries()
+         * @see ScanOptions#setBulkDuplicateTtl(long)
+         */
+        public static final String BULK_COUNTS = "BULK_COUNTS";
+
         private Success() {
         }
     }
@@ -8,6 +8,7 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.DecodeHintType;
@@ -19,7 +20,16 @@ import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
+import com.hardbacknutter.tinyzxingwrapper.scanner.AnalysisResolution;
 import com.hardbacknutter.tinyzxingwrapper.scanner.BarcodeScanner;
+import com.hardbacknutter.tinyzxingwrapper.scanner.BinarizerStrategy;
+import com.hardbacknutter.tinyzxingwrapper.scanner.FrameFilter;
+import com.hardbacknutter.tinyzxingwrapper.scanner.PresenceFrameFilter;
+import com.hardbacknutter.tinyzxingwrapper.scanner.RotationStrategy;
+import com.hardbacknutter.tinyzxingwrapper.scanner.ScanMode;
+import com.hardbacknutter.tinyzxingwrapper.scanner.ScannerPool;
+import com.hardbacknutter.tinyzxingwrapper.scanner.SceneChangeFrameFilter;
+import com.hardbacknutter.tinyzxingwrapper.scanner.SharpnessFrameFilter;
 
 /**
  * Input options for {@link ScanContract}.
@@ -116,6 +126,295 @@ public class ScanOptions {
         return this;
     }
 
+    /**
+     * Decode a half-resolution version of each frame first.
+     * Recommended for large barcodes when using a high analysis resolution.
+     *
+     * @param enabled flag
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setMultiScaleDecoding(boolean)
+     */
+    @NonNull
+    public ScanOptions setMultiScaleDecoding(final boolean enabled) {
+        intent.putExtra(Option.MULTI_SCALE_DECODING, enabled);
+        return this;
+    }
+
+    /**
+     * Keep scanning and collect each distinct barcode once, until the user leaves
+     * the scan screen. The collected barcodes are returned as a tally.
+     *
+     * @param enabled flag
+     *
+     * @return this
+     *
+     * @see ScanIntentResult#getBulkEntries()
+     */
+    @NonNull
+    public ScanOptions setBulkMode(final boolean enabled) {
+        intent.putExtra(Option.BULK_MODE, enabled);
+        return this;
+    }
+
+    /**
+     * Set how long a barcode is remembered in bulk mode.
+     * Scanning the same barcode again after this time counts it again.
+     *
+     * @param ttlMillis time-to-live in milliseconds; {@code 0} to count each barcode only once
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setBulkDuplicateTtl(long)
+     */
+    @NonNull
+    public ScanOptions setBulkDuplicateTtl(final long ttlMillis) {
+        intent.putExtra(Option.BULK_DUPLICATE_TTL_MS, ttlMillis);
+        return this;
+    }
+
+    /**
+     * Keep the camera provider, the analysis executor and the decoder alive
+     * between scans, to start the next scan faster.
+     *
+     * @param enabled flag
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setUsePool(boolean)
+     * @see ScannerPool
+     */
+    @NonNull
+    public ScanOptions setUseScannerPool(final boolean enabled) {
+        intent.putExtra(Option.USE_SCANNER_POOL, enabled);
+        return this;
+    }
+
+    /**
+     * Set the minimal time between two deliveries of results and result points
+     * to the main thread.
+     *
+     * @param intervalMillis in milliseconds; {@code -1} to deliver at once,
+     *                       or {@code 0} to deliver at most once per display frame
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setDeliveryInterval(long)
+     */
+    @NonNull
+    public ScanOptions setDeliveryInterval(final long intervalMillis) {
+        intent.putExtra(Option.DELIVERY_INTERVAL_MS, intervalMillis);
+        return this;
+    }
+
+    /**
+     * Track the location of the barcode, and decode only a region around it.
+     *
+     * @param enabled flag
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setRegionTracking(boolean)
+     */
+    @NonNull
+    public ScanOptions setRegionTracking(final boolean enabled) {
+        intent.putExtra(Option.REGION_TRACKING, enabled);
+        return this;
+    }
+
+    /**
+     * Set how the frames are rotated into display orientation before decoding.
+     *
+     * @param strategy to use
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setRotationStrategy(RotationStrategy)
+     */
+    @NonNull
+    public ScanOptions setRotationStrategy(@NonNull final RotationStrategy strategy) {
+        intent.putExtra(Option.ROTATION_STRATEGY, strategy.name());
+        return this;
+    }
+
+    /**
+     * Set the resolution of the images used for analysis (decoding).
+     *
+     * @param resolution preset to use
+     *
+     * @return this
+     *
+     * @see AnalysisResolution#forFormats(List)
+     */
+    @NonNull
+    public ScanOptions setAnalysisResolution(@NonNull final AnalysisResolution resolution) {
+        intent.putExtra(Option.ANALYSIS_RESOLUTION, resolution.name());
+        return this;
+    }
+
+    /**
+     * Set the backpressure strategy for the analysis images.
+     *
+     * @param strategy either {@link ImageAnalysis#STRATEGY_KEEP_ONLY_LATEST}
+     *                 or {@link ImageAnalysis#STRATEGY_BLOCK_PRODUCER}
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setBackpressureStrategy(int)
+     */
+    @NonNull
+    public ScanOptions setBackpressureStrategy(final int strategy) {
+        if (strategy == ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST
+            || strategy == ImageAnalysis.STRATEGY_BLOCK_PRODUCER) {
+            intent.putExtra(Option.BACKPRESSURE_STRATEGY, strategy);
+        }
+        return this;
+    }
+
+    /**
+     * Set the image queue depth when using {@link ImageAnalysis#STRATEGY_BLOCK_PRODUCER}.
+     *
+     * @param depth of the queue
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setImageQueueDepth(int)
+     */
+    @NonNull
+    public ScanOptions setImageQueueDepth(final int depth) {
+        if (depth > 0) {
+            intent.putExtra(Option.IMAGE_QUEUE_DEPTH, depth);
+        }
+        return this;
+    }
+
+    /**
+     * Match the camera frame rate to the measured decoding throughput.
+     *
+     * @param enabled flag
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setAdaptiveFrameRate(boolean)
+     */
+    @NonNull
+    public ScanOptions setAdaptiveFrameRate(final boolean enabled) {
+        intent.putExtra(Option.ADAPTIVE_FRAME_RATE, enabled);
+        return this;
+    }
+
+    /**
+     * Only decode 1D barcodes, and only in a horizontal band of rows around
+     * the middle of the frame; i.e. along the laser line.
+     *
+     * @param bandHeight the height of the band, as a fraction {@code ]0..1]}
+     *                   of the frame height; use {@code 0} to disable.
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setLaserBandDecoding(float)
+     */
+    @NonNull
+    public ScanOptions setLaserBandDecoding(final float bandHeight) {
+        intent.putExtra(Option.LASER_BAND_HEIGHT, bandHeight);
+        return this;
+    }
+
+    /**
+     * Try the readers for the formats which were recently decoded most often first.
+     *
+     * @param enabled flag
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setAdaptiveReaderOrder(boolean)
+     */
+    @NonNull
+    public ScanOptions setAdaptiveReaderOrder(final boolean enabled) {
+        intent.putExtra(Option.ADAPTIVE_READER_ORDER, enabled);
+        return this;
+    }
+
+    /**
+     * Set the binarizer used to convert the luminance data to black and white.
+     *
+     * @param strategy to use
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setBinarizerStrategy(BinarizerStrategy)
+     */
+    @NonNull
+    public ScanOptions setBinarizerStrategy(@NonNull final BinarizerStrategy strategy) {
+        intent.putExtra(Option.BINARIZER_STRATEGY, strategy.name());
+        return this;
+    }
+
+    /**
+     * Set the size of the window used by {@link BinarizerStrategy#IntegralImage}.
+     *
+     * @param windowSize in pixels; {@code 0} for automatic
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#setBinarizerWindowSize(int)
+     */
+    @NonNull
+    public ScanOptions setBinarizerWindowSize(final int windowSize) {
+        intent.putExtra(Option.BINARIZER_WINDOW_SIZE, windowSize);
+        return this;
+    }
+
+    /**
+     * Skip frames which do not contain anything resembling a barcode,
+     * using a {@link PresenceFrameFilter} with default settings.
+     *
+     * @param enabled flag
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#addFrameFilter(FrameFilter)
+     */
+    @NonNull
+    public ScanOptions setPresenceFilter(final boolean enabled) {
+        intent.putExtra(Option.PRESENCE_FILTER, enabled);
+        return this;
+    }
+
+    /**
+     * Skip frames which are blurred, using a {@link SharpnessFrameFilter}
+     * with default settings.
+     *
+     * @param enabled flag
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#addFrameFilter(FrameFilter)
+     */
+    @NonNull
+    public ScanOptions setSharpnessFilter(final boolean enabled) {
+        intent.putExtra(Option.SHARPNESS_FILTER, enabled);
+        return this;
+    }
+
+    /**
+     * Skip frames showing the same scene as the last decoded frame,
+     * using a {@link SceneChangeFrameFilter} with default settings.
+     * Only useful with {@link ScanMode#Continuous}.
+     *
+     * @param enabled flag
+     *
+     * @return this
+     *
+     * @see BarcodeScanner.Builder#addFrameFilter(FrameFilter)
+     */
+    @NonNull
+    public ScanOptions setSceneChangeFilter(final boolean enabled) {
+        intent.putExtra(Option.SCENE_CHANGE_FILTER, enabled);
+        return this;
+    }
+
     /**
      * Request extra/available meta data to be returned.
      *
@@ -219,6 +518,27 @@ public class ScanOptions {
         return intent.getExtras();
     }
 
+    /**
+     * Prepare for a scan with these options, in the background;
+     * e.g. at startup, or when a scan button becomes visible.
+     * Combine with {@link #setUseScannerPool(boolean)} to keep the warmed-up decoder
+     * for the scan.
+     * <p>
+     * Only meaningful with the default {@link CaptureActivity}, or a custom activity
+     * which configures its scanner from the same options.
+     *
+     * @param context Current context
+     *
+     * @see BarcodeScanner.Builder#prewarm(Context)
+     */
+    public void prewarm(@NonNull final Context context) {
+        final Bundle args = intent.getExtras();
+        new BarcodeScanner.Builder()
+                .addHints(args)
+                .addOptions(args)
+                .prewarm(context);
+    }
+
     /**
      * Create a scan intent with the specified options.
      *
@@ -286,6 +606,205 @@ public class ScanOptions {
          */
         public static final String RETURN_META_DATA = "RETURN_META_DATA";
 
+        /**
+         * Decode a half-resolution version of each frame first.
+         * <p>
+         * Type: boolean
+         * <p>
+         * Default: {@code false}
+         *
+         * @see ScanOptions#setMultiScaleDecoding(boolean)
+         */
+        public static final String MULTI_SCALE_DECODING = "MULTI_SCALE_DECODING";
+
+        /**
+         * Track the location of the barcode, and decode only a region around it.
+         * <p>
+         * Type: boolean
+         * <p>
+         * Default: {@code false}
+         *
+         * @see ScanOptions#setRegionTracking(boolean)
+         */
+        public static final String REGION_TRACKING = "REGION_TRACKING";
+
+        /**
+         * Keep scanning and collect each distinct barcode once.
+         * <p>
+         * Type: boolean
+         * <p>
+         * Default: {@code false}
+         *
+         * @see ScanOptions#setBulkMode(boolean)
+         */
+        public static final String BULK_MODE = "BULK_MODE";
+
+        /**
+         * How long a barcode is remembered in bulk mode.
+         * <p>
+         * Type: long (milliseconds)
+         * <p>
+         * Default: {@code 0}; i.e. forever.
+         *
+         * @see ScanOptions#setBulkDuplicateTtl(long)
+         */
+        public static final String BULK_DUPLICATE_TTL_MS = "BULK_DUPLICATE_TTL_MS";
+
+        /**
+         * Use the process-wide {@link ScannerPool}.
+         * <p>
+         * Type: boolean
+         * <p>
+         * Default: {@code false}
+         *
+         * @see ScanOptions#setUseScannerPool(boolean)
+         */
+        public static final String USE_SCANNER_POOL = "USE_SCANNER_POOL";
+
+        /**
+         * The minimal time between two deliveries of results to the main thread.
+         * <p>
+         * Type: long (milliseconds); {@code 0} for once per display frame.
+         * <p>
+         * Default: {@code -1}; i.e. deliver at once.
+         *
+         * @see ScanOptions#setDeliveryInterval(long)
+         */
+        public static final String DELIVERY_INTERVAL_MS = "DELIVERY_INTERVAL_MS";
+
+        /**
+         * The resolution of the images used for analysis (decoding).
+         * <p>
+         * Type: String; the name of an {@link AnalysisResolution}
+         * <p>
+         * Default: not set; CameraX decides.
+         *
+         * @see ScanOptions#setAnalysisResolution(AnalysisResolution)
+         */
+        public static final String ANALYSIS_RESOLUTION = "ANALYSIS_RESOLUTION";
+
+        /**
+         * The backpressure strategy for the analysis images.
+         * <p>
+         * Type: int
+         * <p>
+         * Default: {@link ImageAnalysis#STRATEGY_KEEP_ONLY_LATEST}
+         *
+         * @see ScanOptions#setBackpressureStrategy(int)
+         */
+        public static final String BACKPRESSURE_STRATEGY = "BACKPRESSURE_STRATEGY";
+
+        /**
+         * The image queue depth when using {@link ImageAnalysis#STRATEGY_BLOCK_PRODUCER}.
+         * <p>
+         * Type: int
+         * <p>
+         * Default: not set; CameraX decides.
+         *
+         * @see ScanOptions#setImageQueueDepth(int)
+         */
+        public static final String IMAGE_QUEUE_DEPTH = "IMAGE_QUEUE_DEPTH";
+
+        /**
+         * Match the camera frame rate to the measured decoding throughput.
+         * <p>
+         * Type: boolean
+         * <p>
+         * Default: {@code false}
+         *
+         * @see ScanOptions#setAdaptiveFrameRate(boolean)
+         */
+        public static final String ADAPTIVE_FRAME_RATE = "ADAPTIVE_FRAME_RATE";
+
+        /**
+         * How the frames are rotated into display orientation before decoding.
+         * <p>
+         * Type: String; the name of a {@link RotationStrategy}
+         * <p>
+         * Default: {@link RotationStrategy#Java}
+         *
+         * @see ScanOptions#setRotationStrategy(RotationStrategy)
+         */
+        public static final String ROTATION_STRATEGY = "ROTATION_STRATEGY";
+
+        /**
+         * Only decode 1D barcodes in a band of rows around the middle of the frame.
+         * <p>
+         * Type: float; the height of the band as a fraction of the frame height.
+         * <p>
+         * Default: {@code 0}; i.e. disabled.
+         *
+         * @see ScanOptions#setLaserBandDecoding(float)
+         */
+        public static final String LASER_BAND_HEIGHT = "LASER_BAND_HEIGHT";
+
+        /**
+         * Try the readers for the formats which were recently decoded most often first.
+         * <p>
+         * Type: boolean
+         * <p>
+         * Default: {@code false}
+         *
+         * @see ScanOptions#setAdaptiveReaderOrder(boolean)
+         */
+        public static final String ADAPTIVE_READER_ORDER = "ADAPTIVE_READER_ORDER";
+
+        /**
+         * The binarizer used to convert the luminance data to black and white.
+         * <p>
+         * Type: String; the name of a {@link BinarizerStrategy}.
+         * <p>
+         * Default: {@link BinarizerStrategy#Hybrid}
+         *
+         * @see ScanOptions#setBinarizerStrategy(BinarizerStrategy)
+         */
+        public static final String BINARIZER_STRATEGY = "BINARIZER_STRATEGY";
+
+        /**
+         * The size of the window used by {@link BinarizerStrategy#IntegralImage}.
+         * <p>
+         * Type: int; in pixels.
+         * <p>
+         * Default: {@code 0}; i.e. {@code 1/8} of the largest frame side.
+         *
+         * @see ScanOptions#setBinarizerWindowSize(int)
+         */
+        public static final String BINARIZER_WINDOW_SIZE = "BINARIZER_WINDOW_SIZE";
+
+        /**
+         * Skip frames which do not contain anything resembling a barcode.
+         * <p>
+         * Type: boolean
+         * <p>
+         * Default: {@code false}
+         *
+         * @see ScanOptions#setPresenceFilter(boolean)
+         */
+        public static final String PRESENCE_FILTER = "PRESENCE_FILTER";
+
+        /**
+         * Skip frames which are blurred; e.g. while the camera is refocusing.
+         * <p>
+         * Type: boolean
+         * <p>
+         * Default: {@code false}
+         *
+         * @see ScanOptions#setSharpnessFilter(boolean)
+         */
+        public static final String SHARPNESS_FILTER = "SHARPNESS_FILTER";
+
+        /**
+         * Skip frames showing the same scene as the last decoded frame.
+         * Only useful with {@link ScanMode#Continuous}.
+         * <p>
+         * Type: boolean
+         * <p>
+         * Default: {@code false}
+         *
+         * @see ScanOptions#setSceneChangeFilter(boolean)
+         */
+        public static final String SCENE_CHANGE_FILTER = "SCENE_CHANGE_FILTER";
+
         private Option() {
         }
     }
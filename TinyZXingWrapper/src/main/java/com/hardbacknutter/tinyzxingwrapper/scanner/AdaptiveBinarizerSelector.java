@@ -0,0 +1,153 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * Selects either {@link BinarizerStrategy#GlobalHistogram} or {@link BinarizerStrategy#Hybrid}
+ * for each frame.
+ * <p>
+ * The frame is divided in a grid of tiles, which are sampled sparsely.
+ * For each tile which shows structure (enough contrast), the midpoint between its
+ * darkest and lightest sample is a good local threshold. When these local thresholds
+ * are close together the lighting is even, and a single global threshold will do.
+ * <p>
+ * The recent success rate of both binarizers is tracked as well; if the global binarizer
+ * does much worse than the hybrid one, the hybrid one is used regardless.
+ * A failure only counts when a barcode was in view; i.e. when either binarizer found
+ * a barcode shortly before, and again shortly after it. A failure on an empty scene says
+ * nothing about the binarizer, and would unfairly count against whichever binarizer
+ * happened to be in use when the barcode left the view.
+ * While the hybrid one is forced, the lighting still decides every
+ * {@link #EXPLORE_INTERVAL} frames, so the rate of the global one keeps being measured
+ * and it can be selected again when it recovers.
+ */
+final class AdaptiveBinarizerSelector {
+
+    private static final int GRID = 8;
+    private static final int SAMPLE_STEP = 4;
+    /** Minimum contrast in a tile to consider it as showing structure. */
+    private static final int MIN_TILE_CONTRAST = 24;
+    /** Maximum spread of the local thresholds for the lighting to be considered even. */
+    private static final int MAX_THRESHOLD_SPREAD = 40;
+    private static final double EMA_ALPHA = 0.05;
+    /** The maximum number of frames between two results for the failures in between to count. */
+    static final int PRESENCE_WINDOW = 15;
+    /** While the hybrid binarizer is forced, let the lighting decide every n frames. */
+    static final int EXPLORE_INTERVAL = 16;
+
+    private double globalSuccessRate;
+    private double hybridSuccessRate;
+    private boolean globalMeasured;
+    private boolean hybridMeasured;
+    /** The number of frames since a barcode was found; by either binarizer. */
+    private int framesSinceFound = Integer.MAX_VALUE;
+    /** The failures since the last result; they count when the next result follows soon. */
+    private int pendingGlobalFailures;
+    private int pendingHybridFailures;
+    private int frameCount;
+
+    /**
+     * Select the binarizer for the given frame.
+     *
+     * @param source the frame
+     *
+     * @return either {@link BinarizerStrategy#GlobalHistogram}
+     *         or {@link BinarizerStrategy#Hybrid}
+     */
+    @NonNull
+    BinarizerStrategy select(@NonNull final LuminanceSource source) {
+        frameCount++;
+        if (globalMeasured && hybridMeasured && globalSuccessRate < hybridSuccessRate / 2
+            && frameCount % EXPLORE_INTERVAL != 0) {
+            return BinarizerStrategy.Hybrid;
+        }
+        return isEvenlyLit(source) ? BinarizerStrategy.GlobalHistogram
+                                   : BinarizerStrategy.Hybrid;
+    }
+
+    /**
+     * Record the outcome of decoding a frame.
+     *
+     * @param strategy the binarizer used
+     * @param success  whether the frame decoded
+     */
+    void onDecoded(@NonNull final BinarizerStrategy strategy,
+                   final boolean success) {
+        if (!success) {
+            if (framesSinceFound < PRESENCE_WINDOW) {
+                framesSinceFound++;
+                if (strategy == BinarizerStrategy.GlobalHistogram) {
+                    pendingGlobalFailures++;
+                } else {
+                    pendingHybridFailures++;
+                }
+            } else {
+                // Most likely there is no barcode in view at all
+                pendingGlobalFailures = 0;
+                pendingHybridFailures = 0;
+            }
+            return;
+        }
+
+        framesSinceFound = 0;
+        for (; pendingGlobalFailures > 0; pendingGlobalFailures--) {
+            update(BinarizerStrategy.GlobalHistogram, 0);
+        }
+        for (; pendingHybridFailures > 0; pendingHybridFailures--) {
+            update(BinarizerStrategy.Hybrid, 0);
+        }
+        update(strategy, 1);
+    }
+
+    private void update(@NonNull final BinarizerStrategy strategy,
+                        final int value) {
+        if (strategy == BinarizerStrategy.GlobalHistogram) {
+            globalSuccessRate += EMA_ALPHA * (value - globalSuccessRate);
+            globalMeasured = true;
+        } else {
+            hybridSuccessRate += EMA_ALPHA * (value - hybridSuccessRate);
+            hybridMeasured = true;
+        }
+    }
+
+    private boolean isEvenlyLit(@NonNull final LuminanceSource source) {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final int tileWidth = width / GRID;
+        final int tileHeight = height / GRID;
+        if (tileWidth < SAMPLE_STEP || tileHeight < SAMPLE_STEP) {
+            return false;
+        }
+
+        final byte[] data = source.getMatrix();
+        int minThreshold = 255;
+        int maxThreshold = 0;
+        for (int ty = 0; ty < GRID; ty++) {
+            for (int tx = 0; tx < GRID; tx++) {
+                int min = 255;
+                int max = 0;
+                for (int y = ty * tileHeight; y < (ty + 1) * tileHeight; y += SAMPLE_STEP) {
+                    final int rowStart = y * width;
+                    for (int x = tx * tileWidth; x < (tx + 1) * tileWidth; x += SAMPLE_STEP) {
+                        final int pixel = data[rowStart + x] & 0xff;
+                        if (pixel < min) {
+                            min = pixel;
+                        }
+                        if (pixel > max) {
+                            max = pixel;
+                        }
+                    }
+                }
+                if (max - min >= MIN_TILE_CONTRAST) {
+                    final int threshold = (min + max) / 2;
+                    minThreshold = Math.min(minThreshold, threshold);
+                    maxThreshold = Math.max(maxThreshold, threshold);
+                }
+            }
+        }
+        // If no tile shows any structure, there is nothing to decode; use the cheapest.
+        return maxThreshold - minThreshold <= MAX_THRESHOLD_SPREAD;
+    }
+}
@@ -0,0 +1,203 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link Reader} which, like {@link com.google.zxing.MultiFormatReader}, tries
+ * a number of readers in turn, but orders them by how often each of them
+ * recently produced a result.
+ * <p>
+ * On frames without a barcode all readers are tried regardless, but on frames
+ * with a barcode of the most common format only a single reader runs.
+ * <p>
+ * The 1D readers are tried together, as a group which scans the image rows once
+ * (see {@link OneDReaderGroup}); the group is tried at the position of its best 1D reader,
+ * and within the group the 1D readers are ordered the same way.
+ * The hit statistics decay over time (half-life {@link #DEFAULT_HALF_LIFE_MS}),
+ * so the order follows a change in what is being scanned.
+ * <p>
+ * Each reader is only created when it is first tried.
+ * <p>
+ * Not thread-safe; use one instance per decoding thread.
+ */
+@SuppressWarnings("WeakerAccess")
+public class AdaptiveMultiFormatReader
+        implements Reader {
+
+    /** The default time after which a hit only counts for half. */
+    public static final long DEFAULT_HALF_LIFE_MS = 60_000L;
+
+    /** All readers, ordered by their score. */
+    @NonNull
+    private final List<Entry> entries = new ArrayList<>();
+    /** The 1D readers; {@code null} if no 1D formats are to be decoded. */
+    @Nullable
+    private final OneDReaderGroup oneDReader;
+    private final double halfLifeNanos;
+    private long lastUpdateNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param formats the formats to decode; an empty set means <strong>all</strong> formats.
+     * @param hints   the (normalized) hints
+     */
+    public AdaptiveMultiFormatReader(@NonNull final Set<BarcodeFormat> formats,
+                                     @NonNull final Map<DecodeHintType, ?> hints) {
+        this(formats, hints, DEFAULT_HALF_LIFE_MS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param formats    the formats to decode; an empty set means <strong>all</strong> formats.
+     * @param hints      the (normalized) hints
+     * @param halfLifeMs the time after which a hit only counts for half
+     */
+    public AdaptiveMultiFormatReader(@NonNull final Set<BarcodeFormat> formats,
+                                     @NonNull final Map<DecodeHintType, ?> hints,
+                                     final long halfLifeMs) {
+        final List<LazyReader> oneD = new ArrayList<>();
+        for (final ReaderType type : ReaderType.forFormats(formats)) {
+            final LazyReader reader = new LazyReader(type, hints);
+            entries.add(new Entry(reader));
+            if (type.isOneD()) {
+                oneD.add(reader);
+            }
+        }
+        oneDReader = oneD.isEmpty() ? null : new OneDReaderGroup(oneD);
+        halfLifeNanos = halfLifeMs * 1_000_000d;
+    }
+
+    @Override
+    @NonNull
+    public Result decode(@NonNull final BinaryBitmap image)
+            throws NotFoundException {
+        return decode(image, null);
+    }
+
+    @Override
+    @NonNull
+    public Result decode(@NonNull final BinaryBitmap image,
+                         @Nullable final Map<DecodeHintType, ?> hints)
+            throws NotFoundException {
+        boolean oneDTried = false;
+        for (final Entry entry : entries) {
+            if (entry.reader.getType().isOneD()) {
+                // The whole group is tried at the position of its first reader
+                if (oneDTried || oneDReader == null) {
+                    continue;
+                }
+                oneDTried = true;
+                try {
+                    final Result result = oneDReader.decode(image, hints);
+                    recordHit(findEntry(oneDReader.getLastHit()));
+                    return result;
+                } catch (@NonNull final ReaderException ignore) {
+                    // continue
+                }
+            } else {
+                try {
+                    final Result result = entry.reader.get().decode(image, hints);
+                    recordHit(entry);
+                    return result;
+                } catch (@NonNull final ReaderException ignore) {
+                    // continue
+                }
+            }
+        }
+        throw NotFoundException.getNotFoundInstance();
+    }
+
+    @Nullable
+    private Entry findEntry(@Nullable final LazyReader reader) {
+        for (final Entry entry : entries) {
+            if (entry.reader == reader) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void recordHit(@Nullable final Entry hit) {
+        if (hit == null) {
+            return;
+        }
+        final long now = System.nanoTime();
+        if (lastUpdateNanos > 0) {
+            final double decay = Math.pow(0.5, (now - lastUpdateNanos) / halfLifeNanos);
+            entries.forEach(entry -> entry.score *= decay);
+        }
+        lastUpdateNanos = now;
+        hit.score += 1;
+
+        // Stable sort: readers without (recent) hits keep their default order.
+        entries.sort(Comparator.comparingDouble((Entry entry) -> entry.score).reversed());
+
+        if (oneDReader != null) {
+            final List<LazyReader> oneDOrder = new ArrayList<>();
+            for (final Entry entry : entries) {
+                if (entry.reader.getType().isOneD()) {
+                    oneDOrder.add(entry.reader);
+                }
+            }
+            oneDReader.setOrder(oneDOrder);
+        }
+    }
+
+    /**
+     * Get the current order in which the readers are tried;
+     * the 1D readers are listed together, at the position of the first one.
+     *
+     * @return reader types
+     */
+    @NonNull
+    List<ReaderType> getOrder() {
+        final List<ReaderType> order = new ArrayList<>(entries.size());
+        boolean oneDAdded = false;
+        for (final Entry entry : entries) {
+            final ReaderType type = entry.reader.getType();
+            if (!type.isOneD()) {
+                order.add(type);
+            } else if (!oneDAdded) {
+                oneDAdded = true;
+                entries.stream()
+                       .map(oneD -> oneD.reader.getType())
+                       .filter(ReaderType::isOneD)
+                       .forEach(order::add);
+            }
+        }
+        return order;
+    }
+
+    @Override
+    public void reset() {
+        entries.forEach(entry -> entry.reader.reset());
+    }
+
+    private static final class Entry {
+
+        @NonNull
+        final LazyReader reader;
+        double score;
+
+        Entry(@NonNull final LazyReader reader) {
+            this.reader = reader;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import android.util.Size;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+
+import com.google.zxing.BarcodeFormat;
+
+import java.util.List;
+
+/**
+ * Presets for the resolution of the images used for analysis (decoding).
+ * <p>
+ * The resolution is the single biggest factor in the decoding cost of a frame.
+ * Large 1D barcodes decode perfectly fine at a low resolution,
+ * while dense 2D barcodes (e.g. DataMatrix) need a high resolution.
+ * <p>
+ * The camera will select the closest supported resolution.
+ *
+ * @see #forFormats(List)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public enum AnalysisResolution {
+    /**
+     * 640x480. Suited for 1D barcodes; e.g. {@link BarcodeFamily#PRODUCT}
+     * and {@link BarcodeFamily#INDUSTRIAL}.
+     */
+    Low(640, 480),
+    /**
+     * 1280x720. Suited for regular 2D barcodes; e.g. QR-codes.
+     */
+    Medium(1280, 720),
+    /**
+     * 1920x1080. Suited for dense 2D barcodes; e.g. DataMatrix or PDF417.
+     */
+    High(1920, 1080);
+
+    private final int width;
+    private final int height;
+
+    AnalysisResolution(final int width,
+                       final int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Get the preset best suited for the given list of formats.
+     *
+     * @param formats to scan for; an empty list means all formats
+     *
+     * @return preset
+     */
+    @NonNull
+    public static AnalysisResolution forFormats(@NonNull final List<BarcodeFormat> formats) {
+        if (formats.isEmpty()) {
+            return Medium;
+        }
+        if (formats.contains(BarcodeFormat.DATA_MATRIX)
+            || formats.contains(BarcodeFormat.PDF_417)
+            || formats.contains(BarcodeFormat.MAXICODE)) {
+            return High;
+        }
+        if (formats.stream().allMatch(format -> BarcodeFamily.PRODUCT.contains(format)
+                                                || BarcodeFamily.INDUSTRIAL.contains(format))) {
+            return Low;
+        }
+        return Medium;
+    }
+
+    /**
+     * Helper method for converting a previously stored name from {@link #name()}
+     * back to the enum value.
+     *
+     * @param name to lookup
+     *
+     * @return enum value, or {@code null} if the name is not valid.
+     */
+    @Nullable
+    public static AnalysisResolution getResolution(@Nullable final String name) {
+        if (name != null) {
+            try {
+                return valueOf(name);
+            } catch (@NonNull final IllegalArgumentException ignore) {
+                // ignore
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the nominal size; i.e. in landscape orientation.
+     *
+     * @return size
+     */
+    @NonNull
+    public Size getSize() {
+        return new Size(width, height);
+    }
+
+    /**
+     * Create a {@link ResolutionSelector} for this preset.
+     *
+     * @return selector
+     */
+    @NonNull
+    public ResolutionSelector createResolutionSelector() {
+        return new ResolutionSelector.Builder()
+                .setResolutionStrategy(new ResolutionStrategy(
+                        getSize(), ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER))
+                .build();
+    }
+}
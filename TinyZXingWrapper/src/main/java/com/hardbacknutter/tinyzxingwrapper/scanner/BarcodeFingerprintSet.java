@@ -0,0 +1,184 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BarcodeFormat;
+
+/**
+ * A compact set of barcode fingerprints, used to report each barcode only once
+ * in {@link ScanMode#Bulk}.
+ * <p>
+ * A fingerprint is a 64-bit hash of the format and the text. The set uses open addressing
+ * with linear probing on primitive arrays; i.e. adding a barcode does not create any objects,
+ * and thousands of barcodes take a few tens of KB.
+ * <p>
+ * Entries can optionally expire after a time-to-live, after which the same barcode
+ * is reported again.
+ * <p>
+ * Not thread-safe.
+ */
+final class BarcodeFingerprintSet {
+
+    /** Marks an empty slot; a fingerprint is never 0. */
+    private static final long EMPTY = 0;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** The time-to-live in milliseconds; {@code 0} for no expiry. */
+    private final long ttlMillis;
+
+    /** The capacity is always a power of 2. */
+    @NonNull
+    private long[] fingerprints = new long[INITIAL_CAPACITY];
+    /** The time each fingerprint was last added; only used with a ttl. */
+    @Nullable
+    private long[] timestamps;
+    /** The number of used slots; including expired entries. */
+    private int used;
+
+    /**
+     * Constructor.
+     *
+     * @param ttlMillis the time-to-live of an entry; use {@code 0} for no expiry
+     */
+    BarcodeFingerprintSet(final long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        if (ttlMillis > 0) {
+            timestamps = new long[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Calculate the fingerprint of a barcode (FNV-1a over the format and the text).
+     *
+     * @param format of the barcode
+     * @param text   of the barcode
+     *
+     * @return fingerprint; never {@code 0}
+     */
+    static long fingerprint(@NonNull final BarcodeFormat format,
+                            @Nullable final String text) {
+        long hash = (FNV_OFFSET_BASIS ^ format.ordinal()) * FNV_PRIME;
+        if (text != null) {
+            for (int i = 0; i < text.length(); i++) {
+                final char c = text.charAt(i);
+                hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+            }
+        }
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    /**
+     * Add a fingerprint.
+     *
+     * @param fingerprint to add; see {@link #fingerprint(BarcodeFormat, String)}
+     * @param nowMillis   the current time; only used with a ttl
+     *
+     * @return {@code true} if the fingerprint was not present, or had expired
+     */
+    boolean add(final long fingerprint,
+                final long nowMillis) {
+        final int mask = fingerprints.length - 1;
+        int slot = mix(fingerprint) & mask;
+        while (fingerprints[slot] != EMPTY) {
+            if (fingerprints[slot] == fingerprint) {
+                if (timestamps != null && nowMillis - timestamps[slot] >= ttlMillis) {
+                    timestamps[slot] = nowMillis;
+                    return true;
+                }
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        fingerprints[slot] = fingerprint;
+        if (timestamps != null) {
+            timestamps[slot] = nowMillis;
+        }
+        used++;
+        // Keep the load factor at or below 0.5
+        if (used * 2 > fingerprints.length) {
+            rehash(nowMillis);
+        }
+        return true;
+    }
+
+    /**
+     * Grow the arrays, dropping any expired entries on the way.
+     *
+     * @param nowMillis the current time
+     */
+    private void rehash(final long nowMillis) {
+        final long[] oldFingerprints = fingerprints;
+        final long[] oldTimestamps = timestamps;
+
+        int live = 0;
+        for (int i = 0; i < oldFingerprints.length; i++) {
+            if (oldFingerprints[i] != EMPTY && !isExpired(oldTimestamps, i, nowMillis)) {
+                live++;
+            }
+        }
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < live * 4) {
+            capacity <<= 1;
+        }
+
+        fingerprints = new long[capacity];
+        timestamps = oldTimestamps != null ? new long[capacity] : null;
+        used = 0;
+
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldFingerprints.length; i++) {
+            if (oldFingerprints[i] != EMPTY && !isExpired(oldTimestamps, i, nowMillis)) {
+                int slot = mix(oldFingerprints[i]) & mask;
+                while (fingerprints[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                fingerprints[slot] = oldFingerprints[i];
+                if (timestamps != null) {
+                    //noinspection DataFlowIssue
+                    timestamps[slot] = oldTimestamps[i];
+                }
+                used++;
+            }
+        }
+    }
+
+    private boolean isExpired(@Nullable final long[] times,
+                              final int slot,
+                              final long nowMillis) {
+        return times != null && nowMillis - times[slot] >= ttlMillis;
+    }
+
+    /**
+     * Spread the bits of the fingerprint over the low bits used for the slot index.
+     */
+    private static int mix(final long fingerprint) {
+        final long h = fingerprint * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Get the number of entries; including expired ones which were not dropped yet.
+     *
+     * @return size
+     */
+    int size() {
+        return used;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    void clear() {
+        fingerprints = new long[INITIAL_CAPACITY];
+        if (timestamps != null) {
+            timestamps = new long[INITIAL_CAPACITY];
+        }
+        used = 0;
+    }
+}
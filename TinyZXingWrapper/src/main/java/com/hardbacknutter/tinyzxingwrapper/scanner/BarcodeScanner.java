@@ -2,6 +2,9 @@ package com.hardbacknutter.tinyzxingwrapper.scanner;
 
 import android.content.Context;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Range;
 
 import androidx.annotation.GuardedBy;
 import androidx.annotation.NonNull;
@@ -13,6 +16,7 @@ import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageCapture;
 import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.content.ContextCompat;
@@ -38,9 +42,11 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import com.hardbacknutter.tinyzxingwrapper.ScanContract;
+import com.hardbacknutter.tinyzxingwrapper.ScanOptions;
 
 /**
  * The main scanner code.
@@ -63,12 +69,64 @@ public class BarcodeScanner
     private final ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
     @NonNull
     private final Executor mainExecutor;
+    /** The executor for the {@link DecoderResultListener}; {@code null} for the main thread. */
+    @Nullable
+    private final Executor callbackExecutor;
     private final Object lock = new Object();
 
     @NonNull
     private final DecoderFactory decoderFactory;
+    /** Set if the executor and decoder are taken from the pool. */
+    @Nullable
+    private final ScannerPool pool;
+    /** Identifies the decoder configuration in the pool; {@code null} if not pooled. */
+    @Nullable
+    private final String decoderPoolKey;
+    /** The hints as set on the builder; empty if a custom factory does not use them. */
+    @NonNull
+    private final Map<DecodeHintType, Object> hints;
     @NonNull
     private final ScanMode scanMode;
+    private final boolean multiScaleDecoding;
+    private final boolean regionTracking;
+    /** Only used with {@link ScanMode#Bulk}. */
+    private final long bulkDuplicateTtlMillis;
+    /** The minimal time between two deliveries of results; see {@link ResultCoalescer}. */
+    private final long deliveryIntervalMillis;
+    @NonNull
+    private final RotationStrategy rotationStrategy;
+    @NonNull
+    private final ScannerMetrics metrics = new ScannerMetrics();
+    /**
+     * Only frames received while running are decoded.
+     * Leaving {@link State#Paused} is only done while holding the {@link #lock};
+     * see {@link #resume()}.
+     */
+    @NonNull
+    private final AtomicReference<State> state = new AtomicReference<>(State.Stopped);
+    /** In {@link ScanMode#Single}: pause instead of stopping after the result. */
+    private final boolean pauseOnResult;
+
+    /**
+     * Analysis configuration; {@code null} values let CameraX use its defaults.
+     */
+    @Nullable
+    private final ResolutionSelector resolutionSelector;
+    @Nullable
+    private final Integer backpressureStrategy;
+    @Nullable
+    private final Integer imageQueueDepth;
+    /**
+     * Only set when adaptive frame rate control is enabled.
+     */
+    @Nullable
+    private final FrameRateController frameRateController;
+    /** Run on each frame before it is decoded. */
+    @NonNull
+    private final List<FrameFilter> frameFilters;
+    /** The {@link ScannerMetrics} counter for each of the {@link #frameFilters}. */
+    @NonNull
+    private final List<String> frameFilterSkippedKeys;
 
     /**
      * Default is {@code null} which lets the device decide.
@@ -80,25 +138,57 @@ public class BarcodeScanner
     private boolean enableTorch;
     @Nullable
     private DecoderResultPointsListener resultPointsListener;
+    /** Set while started from a {@link #getResultPublisher publisher}. */
+    @Nullable
+    private volatile ResultPublisher resultPublisher;
     @GuardedBy("lock")
     @Nullable
     private ProcessCameraProvider cameraProvider;
     @GuardedBy("lock")
     @Nullable
     private CameraControl cameraControl;
+    /** The coalescer delivering the results of the current start; reset on resume. */
+    @GuardedBy("lock")
+    @Nullable
+    private ResultCoalescer resultCoalescer;
+    /** The decoder taken from the pool; kept for all starts until destroyed. */
+    @GuardedBy("lock")
+    @Nullable
+    private Decoder pooledDecoder;
 
     private BarcodeScanner(@NonNull final Context context,
                            @NonNull final Builder builder) {
         mainExecutor = ContextCompat.getMainExecutor(context);
-        cameraExecutor = Executors.newSingleThreadExecutor();
-
-        cameraProviderFuture = ProcessCameraProvider.getInstance(context);
+        callbackExecutor = builder.callbackExecutor;
+        if (builder.usePool) {
+            pool = ScannerPool.getInstance();
+            cameraExecutor = pool.acquireExecutor();
+            cameraProviderFuture = pool.getCameraProvider(context);
+        } else {
+            pool = null;
+            cameraExecutor = Executors.newSingleThreadExecutor();
+            cameraProviderFuture = ProcessCameraProvider.getInstance(context);
+        }
 
         scanMode = Objects.requireNonNullElse(builder.scanMode, ScanMode.Single);
+        multiScaleDecoding = builder.multiScaleDecoding;
+        regionTracking = builder.regionTracking;
+        bulkDuplicateTtlMillis = builder.bulkDuplicateTtlMillis;
+        deliveryIntervalMillis = builder.deliveryIntervalMillis;
+        pauseOnResult = builder.pauseOnResult;
+        rotationStrategy = Objects.requireNonNullElse(builder.rotationStrategy,
+                                                      RotationStrategy.Java);
+
+        resolutionSelector = builder.resolutionSelector;
+        backpressureStrategy = builder.backpressureStrategy;
+        imageQueueDepth = builder.imageQueueDepth;
+        frameRateController = builder.adaptiveFrameRate ? new FrameRateController() : null;
+        frameFilters = new ArrayList<>(builder.frameFilters);
+        frameFilterSkippedKeys = new ArrayList<>(builder.frameFilterSkippedKeys);
 
-        decoderFactory = Objects.requireNonNullElseGet(builder.decoderFactory,
-                                                       () -> new DefaultDecoderFactory(
-                                                               builder.hints));
+        hints = new EnumMap<>(builder.hints);
+        decoderFactory = builder.createDecoderFactory(hints);
+        decoderPoolKey = pool != null ? builder.getDecoderPoolKey() : null;
     }
 
     /**
@@ -149,6 +239,41 @@ public class BarcodeScanner
         }
     }
 
+    /**
+     * Get the metrics collected by this scanner.
+     *
+     * @return metrics
+     */
+    @NonNull
+    public ScannerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the AE target frame rate range currently requested from the camera
+     * when adaptive frame rate control is enabled.
+     *
+     * @return range, or {@code null} if not enabled or none applied (yet)
+     *
+     * @see Builder#setAdaptiveFrameRate(boolean)
+     */
+    @Nullable
+    public Range<Integer> getTargetFrameRateRange() {
+        return frameRateController != null ? frameRateController.getTargetFrameRateRange() : null;
+    }
+
+    /**
+     * Get the effective rate at which frames are being decoded
+     * when adaptive frame rate control is enabled.
+     *
+     * @return frames per second; {@code 0} if not enabled or not known (yet)
+     *
+     * @see Builder#setAdaptiveFrameRate(boolean)
+     */
+    public float getEffectiveFrameRate() {
+        return frameRateController != null ? frameRateController.getEffectiveFrameRate() : 0;
+    }
+
     /**
      * Start the scanner.
      *
@@ -159,6 +284,9 @@ public class BarcodeScanner
     public void start(@NonNull final LifecycleOwner lifecycleOwner,
                       @NonNull final PreviewView previewView,
                       @NonNull final DecoderResultListener resultListener) {
+        synchronized (lock) {
+            state.set(State.Running);
+        }
         cameraProviderFuture.addListener(
                 () -> {
                     try {
@@ -172,7 +300,7 @@ public class BarcodeScanner
                         }
                         final CameraSelector cameraSelector = csb.build();
 
-                        final Decoder decoder = decoderFactory.createDecoder();
+                        final Decoder decoder = createDecoder();
 
                         final Preview preview = new Preview.Builder().build();
                         preview.setSurfaceProvider(previewView.getSurfaceProvider());
@@ -180,23 +308,117 @@ public class BarcodeScanner
 
                         final ImageCapture imageCapture = new ImageCapture.Builder().build();
 
+                        // With pauseOnResult, the analyzer already paused the scanner
+                        final Runnable onSingleResult = pauseOnResult
+                                                        ? () -> { }
+                                                        : BarcodeScanner.this::stopOnMainThread;
+                        final ResultCoalescer coalescer;
+                        final ResultCoalescer pointsCoalescer;
+                        if (callbackExecutor == null) {
+                            coalescer = new ResultCoalescer(
+                                    scanMode, deliveryIntervalMillis, mainExecutor, true,
+                                    resultListener, () -> resultPointsListener,
+                                    onSingleResult, metrics);
+                            pointsCoalescer = coalescer;
+                        } else {
+                            // The points are meant for the UI; keep them on the main thread
+                            coalescer = new ResultCoalescer(
+                                    scanMode, deliveryIntervalMillis, callbackExecutor, false,
+                                    resultListener, () -> null,
+                                    onSingleResult, metrics);
+                            pointsCoalescer = new ResultCoalescer(
+                                    scanMode, deliveryIntervalMillis, mainExecutor, true,
+                                    null, () -> resultPointsListener,
+                                    // never called: it delivers no results
+                                    () -> { }, metrics);
+                        }
+
                         final ImageAnalysis.Analyzer analyzer = new ImageAnalysis.Analyzer() {
 
-                            /** Prevent duplicate scans in {@link ScanMode#Continuous}. */
+                            /**
+                             * The barcodes seen in {@link ScanMode#Bulk}.
+                             * Only accessed from the analysis thread.
+                             */
                             @Nullable
-                            private String lastBarcodeText;
+                            private final BarcodeFingerprintSet fingerprints =
+                                    scanMode == ScanMode.Bulk
+                                    ? new BarcodeFingerprintSet(bulkDuplicateTtlMillis) : null;
+                            /** Only accessed from the analysis thread. */
+                            private boolean firstDecode = true;
+                            /**
+                             * Reused for each frame; a frame is done with before
+                             * the next one is processed.
+                             */
+                            private final FrameBuffers frameBuffers = new FrameBuffers();
 
                             @Override
                             public void analyze(@NonNull final ImageProxy image) {
                                 try (image) {
+                                    if (state.get() != State.Running) {
+                                        metrics.increment(ScannerMetrics.FRAME_PAUSED);
+                                        return;
+                                    }
+                                    final ResultPublisher publisher = resultPublisher;
+                                    if (publisher != null && !publisher.hasDemand()) {
+                                        metrics.increment(ScannerMetrics.FRAME_NO_DEMAND);
+                                        return;
+                                    }
+                                    final long analyzeStart = System.nanoTime();
+                                    if (!acceptFrame(image)) {
+                                        return;
+                                    }
+
+                                    long start = System.nanoTime();
                                     final LuminanceSource luminanceSource = process(image);
-                                    final Result result = decoder.decode(luminanceSource);
-                                    if (result != null) {
-                                        forwardResult(result);
+                                    metrics.addTime(ScannerMetrics.FRAME_PREPARE,
+                                                    System.nanoTime() - start);
+
+                                    start = System.nanoTime();
+                                    final Result result;
+                                    final List<Result> results;
+                                    if (scanMode == ScanMode.Multi
+                                        || scanMode == ScanMode.Bulk) {
+                                        results = decoder.decodeMultiple(luminanceSource);
+                                        result = results.isEmpty() ? null : results.get(0);
+                                    } else {
+                                        results = null;
+                                        result = decoder.decode(luminanceSource);
+                                    }
+                                    final long decodeNanos = System.nanoTime() - start;
+                                    metrics.addTime(ScannerMetrics.FRAME_DECODE, decodeNanos);
+                                    if (firstDecode) {
+                                        firstDecode = false;
+                                        metrics.addTime(ScannerMetrics.STARTUP_FIRST_DECODE,
+                                                        decodeNanos);
+                                    }
+                                    for (final FrameFilter filter : frameFilters) {
+                                        filter.onDecoded(result != null);
+                                    }
+                                    if (frameRateController != null) {
+                                        // The throughput is limited by the whole analysis,
+                                        // not just the decoding
+                                        frameRateController.onFrameDecoded(
+                                                image.getImageInfo().getTimestamp(),
+                                                System.nanoTime() - analyzeStart);
+                                    }
+                                    if (results != null) {
+                                        if (fingerprints != null) {
+                                            forwardNewResults(results);
+                                        } else if (!results.isEmpty()) {
+                                            coalescer.offerResults(results);
+                                        }
+                                    } else if (result != null) {
                                         if (scanMode == ScanMode.Single) {
+                                            // Stop decoding right now; stopping the camera
+                                            // is done on the main thread after the delivery
+                                            if (state.compareAndSet(State.Running,
+                                                                    State.Paused)) {
+                                                coalescer.offerResult(result);
+                                            }
                                             // all done
                                             return;
                                         }
+                                        coalescer.offerResult(result);
                                     }
 
                                     if (resultPointsListener != null) {
@@ -210,13 +432,56 @@ public class BarcodeScanner
                                 } catch (@NonNull final Throwable e) {
                                     // catching Throwable, as we see StackOverflowError
                                     // on some devices.
-                                    mainExecutor.execute(() -> {
-                                        resultListener.onError(e);
-                                        BarcodeScanner.this.stop();
-                                    });
+                                    if (callbackExecutor == null) {
+                                        mainExecutor.execute(() -> {
+                                            resultListener.onError(e);
+                                            BarcodeScanner.this.stop();
+                                        });
+                                    } else {
+                                        callbackExecutor.execute(() -> resultListener.onError(e));
+                                        mainExecutor.execute(BarcodeScanner.this::stop);
+                                    }
                                 }
                             }
 
+                            /**
+                             * Run the {@link FrameFilter}s on the raw image.
+                             *
+                             * @param image to test
+                             *
+                             * @return {@code true} if the image should be decoded
+                             */
+                            private boolean acceptFrame(@NonNull final ImageProxy image) {
+                                if (frameFilters.isEmpty()) {
+                                    return true;
+                                }
+
+                                final long start = System.nanoTime();
+                                final ImageProxy.PlaneProxy yPlane = image.getPlanes()[0];
+                                final ByteBuffer yByteBuffer = yPlane.getBuffer();
+                                int rejectedBy = -1;
+                                for (int i = 0; i < frameFilters.size(); i++) {
+                                    if (!frameFilters.get(i).accept(yByteBuffer,
+                                                                    image.getWidth(),
+                                                                    image.getHeight(),
+                                                                    yPlane.getRowStride(),
+                                                                    yPlane.getPixelStride())) {
+                                        rejectedBy = i;
+                                        break;
+                                    }
+                                }
+                                metrics.addTime(ScannerMetrics.FRAME_FILTER,
+                                                System.nanoTime() - start);
+
+                                if (rejectedBy < 0) {
+                                    metrics.increment(ScannerMetrics.FRAME_FILTER_PASSED);
+                                    return true;
+                                }
+                                metrics.increment(ScannerMetrics.FRAME_FILTER_SKIPPED);
+                                metrics.increment(frameFilterSkippedKeys.get(rejectedBy));
+                                return false;
+                            }
+
                             @NonNull
                             private SimpleLuminanceSource process(@NonNull final ImageProxy image) {
                                 // The image provided has format ImageFormat.YUV_420_888.
@@ -225,32 +490,43 @@ public class BarcodeScanner
 
                                 final ByteBuffer yByteBuffer = yPlane.getBuffer();
                                 yByteBuffer.rewind();
-                                final byte[] yData = new byte[yByteBuffer.remaining()];
+                                final byte[] yData = frameBuffers.getYData(
+                                        yByteBuffer.remaining());
                                 yByteBuffer.get(yData);
 
+                                // With RotationStrategy.CameraX the image is already rotated.
+                                final int rotation = rotationStrategy == RotationStrategy.Java
+                                                     ? image.getImageInfo().getRotationDegrees()
+                                                     : 0;
+
                                 return new SimpleLuminanceSource(yData,
                                                                  image.getWidth(),
                                                                  image.getHeight(),
                                                                  yPlane.getRowStride(),
-                                                                 yPlane.getPixelStride())
-                                        .flipHorizontal(isImageFlipped)
-                                        .rotate(image.getImageInfo()
-                                                     .getRotationDegrees());
+                                                                 yPlane.getPixelStride(),
+                                                                 frameBuffers)
+                                        .flipHorizontal(isImageFlipped, frameBuffers)
+                                        .rotate(rotation, frameBuffers);
                             }
 
-                            private void forwardResult(@NonNull final Result result) {
-                                mainExecutor.execute(() -> {
-                                    if (scanMode == ScanMode.Single) {
-                                        resultListener.onResult(result);
-                                        BarcodeScanner.this.stop();
-                                    } else {
-                                        // don't check on null/blank
-                                        if (!Objects.equals(lastBarcodeText, result.getText())) {
-                                            lastBarcodeText = result.getText();
-                                            resultListener.onResult(result);
-                                        }
-                                    }
-                                });
+                            /**
+                             * Forward the barcodes which were not seen before as a batch.
+                             *
+                             * @param results to check
+                             */
+                            private void forwardNewResults(@NonNull final List<Result> results) {
+                                final long now = SystemClock.elapsedRealtime();
+                                //noinspection DataFlowIssue
+                                final List<Result> newResults = results
+                                        .stream()
+                                        .filter(result -> fingerprints.add(
+                                                BarcodeFingerprintSet.fingerprint(
+                                                        result.getBarcodeFormat(),
+                                                        result.getText()), now))
+                                        .collect(Collectors.toList());
+                                if (!newResults.isEmpty()) {
+                                    coalescer.offerResults(newResults);
+                                }
                             }
 
                             /**
@@ -266,30 +542,26 @@ public class BarcodeScanner
                              */
                             private void updatePoints(@NonNull final ImageProxy image,
                                                       @NonNull final List<ResultPoint> points) {
-
-                                mainExecutor.execute(() -> {
-                                    //noinspection DataFlowIssue
-                                    resultPointsListener.setImageSize(image.getWidth(),
-                                                                      image.getHeight());
-                                    points.forEach(point -> {
-                                        if (isImageFlipped) {
-                                            final float x = image.getWidth() - point.getX();
-                                            final float y = point.getY();
-                                            resultPointsListener.foundPossibleResultPoint(
-                                                    new ResultPoint(x, y));
-                                        } else {
-                                            resultPointsListener.foundPossibleResultPoint(
-                                                    point);
-                                        }
-                                    });
-                                });
+                                final int width = image.getWidth();
+                                if (isImageFlipped) {
+                                    pointsCoalescer.offerPoints(width, image.getHeight(),
+                                                          points.stream()
+                                                                .map(point -> new ResultPoint(
+                                                                        width - point.getX(),
+                                                                        point.getY()))
+                                                                .collect(Collectors.toList()));
+                                } else {
+                                    pointsCoalescer.offerPoints(width, image.getHeight(),
+                                                                points);
+                                }
                             }
                         };
 
-                        final ImageAnalysis imageAnalyzer = new ImageAnalysis.Builder().build();
+                        final ImageAnalysis imageAnalyzer = createImageAnalysis();
                         imageAnalyzer.setAnalyzer(cameraExecutor, analyzer);
 
                         synchronized (lock) {
+                            resultCoalescer = coalescer;
                             cameraProvider = cameraProviderFuture.get();
                             cameraProvider.unbindAll();
 
@@ -301,47 +573,260 @@ public class BarcodeScanner
 
                             cameraControl = camera.getCameraControl();
                             cameraControl.enableTorch(enableTorch);
+
+                            if (frameRateController != null) {
+                                frameRateController.attach(camera);
+                            }
                         }
 
 
                     } catch (@NonNull final ExecutionException | InterruptedException e) {
-                        mainExecutor.execute(() -> resultListener.onError(e));
+                        Objects.requireNonNullElse(callbackExecutor, mainExecutor)
+                               .execute(() -> resultListener.onError(e));
                     }
                 },
                 mainExecutor);
     }
 
+    /**
+     * Get the results as a reactive stream.
+     * <p>
+     * Subscribing starts the scanner, as with
+     * {@link #start(LifecycleOwner, PreviewView, DecoderResultListener)};
+     * cancelling the subscription stops it.
+     * <p>
+     * The demand of the subscriber drives the scanner: frames are only analysed
+     * while more results were requested than are waiting to be delivered.
+     * All {@link ScanMode}s share the same stream of single results; results found
+     * together are buffered and emitted as requested.
+     * In {@link ScanMode#Single}, the stream completes after the first result.
+     * <p>
+     * The subscriber is called on the callback executor;
+     * see {@link Builder#setCallbackExecutor(Executor)}.
+     * Each publisher accepts a single subscriber.
+     *
+     * @param lifecycleOwner the caller
+     * @param previewView    where to show the preview
+     *
+     * @return a new publisher
+     */
+    @NonNull
+    public ResultFlow.Publisher<Result> getResultPublisher(
+            @NonNull final LifecycleOwner lifecycleOwner,
+            @NonNull final PreviewView previewView) {
+        return new ResultPublisher(scanMode == ScanMode.Single,
+                                   publisher -> {
+                                       resultPublisher = publisher;
+                                       start(lifecycleOwner, previewView, publisher);
+                                   },
+                                   publisher -> {
+                                       if (resultPublisher == publisher) {
+                                           resultPublisher = null;
+                                           stopOnMainThread();
+                                       }
+                                   });
+    }
+
+    @NonNull
+    private ImageAnalysis createImageAnalysis() {
+        final ImageAnalysis.Builder builder = new ImageAnalysis.Builder()
+                // Explicitly set, as we rely on the Y plane being plane 0.
+                .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888)
+                .setOutputImageRotationEnabled(rotationStrategy == RotationStrategy.CameraX);
+        if (resolutionSelector != null) {
+            builder.setResolutionSelector(resolutionSelector);
+        }
+        if (backpressureStrategy != null) {
+            builder.setBackpressureStrategy(backpressureStrategy);
+        }
+        if (imageQueueDepth != null) {
+            builder.setImageQueueDepth(imageQueueDepth);
+        }
+        return builder.build();
+    }
+
+    @NonNull
+    private Decoder createDecoder() {
+        final long start = System.nanoTime();
+        Decoder decoder;
+        if (pool != null && decoderPoolKey != null) {
+            synchronized (lock) {
+                if (pooledDecoder == null) {
+                    pooledDecoder = pool.acquireDecoder(decoderPoolKey, decoderFactory);
+                }
+                decoder = pooledDecoder;
+            }
+        } else {
+            decoder = decoderFactory.createDecoder();
+        }
+        if (rotationStrategy == RotationStrategy.None) {
+            decoder = new OrientationAgnosticDecoder(decoder, hints);
+        }
+        if (multiScaleDecoding) {
+            decoder = new PyramidDecoder(decoder);
+        }
+        if (regionTracking) {
+            decoder = new TrackingDecoder(decoder);
+        }
+        decoder.setMetrics(metrics);
+        metrics.addTime(ScannerMetrics.STARTUP_CREATE_DECODER, System.nanoTime() - start);
+        return decoder;
+    }
+
+    /**
+     * Pause the scanner: frames are no longer decoded, but the camera
+     * and the preview keep running.
+     * Can be called from any thread.
+     *
+     * @return {@code true} if paused; {@code false} if the scanner was not running
+     *
+     * @see #resume()
+     */
+    public boolean pause() {
+        return state.compareAndSet(State.Running, State.Paused);
+    }
+
+    /**
+     * Resume a paused scanner. As the camera was never unbound,
+     * decoding restarts with the next frame.
+     * <p>
+     * A barcode which was already reported before pausing, is reported again.
+     * Can be called from any thread.
+     *
+     * @return {@code true} if resumed; {@code false} if the scanner was not paused
+     *
+     * @see #pause()
+     * @see Builder#setPauseOnResult(boolean)
+     */
+    public boolean resume() {
+        synchronized (lock) {
+            // Only pause() and the analyzer change the state without the lock,
+            // and both only from Running; i.e. this check and set are atomic.
+            if (state.get() != State.Paused) {
+                return false;
+            }
+            // Reset before running, so the first new frame is not taken as a duplicate
+            if (resultCoalescer != null) {
+                resultCoalescer.reset();
+            }
+            state.set(State.Running);
+            return true;
+        }
+    }
+
+    /**
+     * Check whether the scanner is paused.
+     *
+     * @return {@code true} if paused
+     */
+    public boolean isPaused() {
+        return state.get() == State.Paused;
+    }
+
     /**
      * Stop the scanner.
      */
     public void stop() {
         synchronized (lock) {
+            state.set(State.Stopped);
+            resultCoalescer = null;
             cameraControl = null;
+            if (frameRateController != null) {
+                frameRateController.detach();
+            }
             if (cameraProvider != null) {
                 cameraProvider.unbindAll();
             }
         }
     }
 
+    /**
+     * Stop the scanner from any thread; CameraX must be called on the main thread.
+     */
+    private void stopOnMainThread() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            stop();
+        } else {
+            mainExecutor.execute(this::stop);
+        }
+    }
+
     @Override
     public void onStateChanged(@NonNull final LifecycleOwner source,
                                @NonNull final Lifecycle.Event event) {
         if (event == Lifecycle.Event.ON_DESTROY) {
-            cameraExecutor.shutdown();
+            if (pool != null) {
+                final Decoder decoder;
+                synchronized (lock) {
+                    decoder = pooledDecoder;
+                    pooledDecoder = null;
+                }
+                // Queued after any frame still being decoded,
+                // so the next user of the decoder never overlaps with us.
+                cameraExecutor.execute(() -> {
+                    if (decoder != null && decoderPoolKey != null) {
+                        pool.releaseDecoder(decoderPoolKey, decoder);
+                    }
+                    pool.releaseExecutor(cameraExecutor);
+                });
+            } else {
+                cameraExecutor.shutdown();
+            }
         }
     }
 
+    /**
+     * The lifecycle of the scanner.
+     */
+    private enum State {
+        Stopped,
+        Running,
+        Paused
+    }
+
     /**
      * The builder prepares all/any arguments related to the actual barcode decoding.
      */
     @SuppressWarnings({"unused", "UnusedReturnValue"})
     public static class Builder {
+
+        /** Deliver the results as soon as possible. */
+        public static final long DELIVERY_IMMEDIATE = -1;
+        /** Deliver the results at most once per display frame. */
+        public static final long DELIVERY_PER_DISPLAY_FRAME = 0;
+
         private final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
 
         @Nullable
         private DecoderFactory decoderFactory;
         @Nullable
         private ScanMode scanMode;
+        private boolean multiScaleDecoding;
+        private boolean regionTracking;
+        private long bulkDuplicateTtlMillis;
+        private long deliveryIntervalMillis = DELIVERY_IMMEDIATE;
+        private boolean pauseOnResult;
+        private boolean usePool;
+        @Nullable
+        private Executor callbackExecutor;
+        @Nullable
+        private RotationStrategy rotationStrategy;
+        @Nullable
+        private ResolutionSelector resolutionSelector;
+        @Nullable
+        private Integer backpressureStrategy;
+        @Nullable
+        private Integer imageQueueDepth;
+        private boolean adaptiveFrameRate;
+        private float laserBandHeight;
+        private boolean adaptiveReaderOrder;
+        @Nullable
+        private BinarizerStrategy binarizerStrategy;
+        private int binarizerWindowSize;
+        @NonNull
+        private final List<FrameFilter> frameFilters = new ArrayList<>();
+        @NonNull
+        private final List<String> frameFilterSkippedKeys = new ArrayList<>();
 
         /**
          * Set the {@link ScanMode}.
@@ -352,6 +837,356 @@ public class BarcodeScanner
             this.scanMode = mode;
         }
 
+        /**
+         * Take the camera provider, the analysis executor and the decoder from
+         * the process-wide {@link ScannerPool}, and give them back when done;
+         * i.e. consecutive scanners start faster.
+         * <p>
+         * The scanner must be added as an observer to the lifecycle of its owner,
+         * as it gives everything back when the lifecycle is destroyed.
+         *
+         * @param enabled flag
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder setUsePool(final boolean enabled) {
+            this.usePool = enabled;
+            return this;
+        }
+
+        /**
+         * In {@link ScanMode#Single}, pause the scanner after the result
+         * instead of stopping it.
+         * <p>
+         * Decoding stops as soon as a barcode is found either way. When paused,
+         * the camera is not unbound; call {@link BarcodeScanner#resume()} to scan
+         * the next barcode almost instantly.
+         *
+         * @param enabled flag
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder setPauseOnResult(final boolean enabled) {
+            this.pauseOnResult = enabled;
+            return this;
+        }
+
+        /**
+         * Set how long a barcode is remembered in {@link ScanMode#Bulk}.
+         * Scanning the same barcode again after this time reports it again.
+         * Negative values are ignored.
+         *
+         * @param ttlMillis time-to-live in milliseconds;
+         *                  use {@code 0} (the default) to report each barcode only once.
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder setBulkDuplicateTtl(final long ttlMillis) {
+            if (ttlMillis >= 0) {
+                this.bulkDuplicateTtlMillis = ttlMillis;
+            }
+            return this;
+        }
+
+        /**
+         * Set how often results and result points are delivered on the main thread.
+         * <p>
+         * Everything decoded while a delivery is pending is delivered in the same batch;
+         * i.e. a single main thread hop. In {@link ScanMode#Continuous} several results
+         * are delivered with {@link DecoderResultListener#onResults(List)}.
+         * <p>
+         * Useful in {@link ScanMode#Continuous} with a fast decoder, where posting
+         * every frame floods the main thread.
+         * Values smaller than {@link #DELIVERY_IMMEDIATE} are ignored.
+         *
+         * @param intervalMillis the minimal time between two deliveries in milliseconds;
+         *                       {@link #DELIVERY_IMMEDIATE} (the default) to post at once,
+         *                       or {@link #DELIVERY_PER_DISPLAY_FRAME}
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder setDeliveryInterval(final long intervalMillis) {
+            if (intervalMillis >= DELIVERY_IMMEDIATE) {
+                this.deliveryIntervalMillis = intervalMillis;
+            }
+            return this;
+        }
+
+        /**
+         * Set the executor on which the {@link DecoderResultListener} is called.
+         * <p>
+         * By default, results are delivered on the main thread. When the results are
+         * only passed on to a background task (e.g. a database or network queue),
+         * use an executor of your own to avoid the round-trip via the (busy) main thread;
+         * or {@code Runnable::run} to be called directly on the analysis thread.
+         * In the latter case, the listener must return quickly, as it holds up
+         * the decoding of the next frame.
+         * <p>
+         * The executor should be serial to keep the results in order.
+         * The {@link DecoderResultPointsListener} is always called on the main thread.
+         *
+         * @param executor to use
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder setCallbackExecutor(@NonNull final Executor executor) {
+            this.callbackExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Decode a half-resolution version of each frame first, and only decode
+         * the full-resolution frame when the former shows a possible barcode
+         * which it failed to decode.
+         * <p>
+         * Useful with high analysis resolutions and (mostly) large barcodes.
+         *
+         * @param enabled flag
+         *
+         * @return this
+         *
+         * @see PyramidDecoder
+         */
+        @NonNull
+        public Builder setMultiScaleDecoding(final boolean enabled) {
+            this.multiScaleDecoding = enabled;
+            return this;
+        }
+
+        /**
+         * Track the location of the barcode, and decode only a region around
+         * the predicted location. The full frame is still decoded periodically,
+         * and when the track is lost.
+         * <p>
+         * Useful with {@link ScanMode#Continuous}; e.g. barcodes on a conveyor belt.
+         *
+         * @param enabled flag
+         *
+         * @return this
+         *
+         * @see TrackingDecoder
+         */
+        @NonNull
+        public Builder setRegionTracking(final boolean enabled) {
+            this.regionTracking = enabled;
+            return this;
+        }
+
+        /**
+         * Set how the frames are rotated into display orientation before decoding.
+         * <p>
+         * Default: {@link RotationStrategy#Java}
+         *
+         * @param strategy to use
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder setRotationStrategy(@NonNull final RotationStrategy strategy) {
+            this.rotationStrategy = strategy;
+            return this;
+        }
+
+        /**
+         * Set the resolution of the images used for analysis (decoding) using a preset.
+         *
+         * @param resolution preset to use
+         *
+         * @return this
+         *
+         * @see AnalysisResolution#forFormats(List)
+         */
+        @NonNull
+        public Builder setAnalysisResolution(@NonNull final AnalysisResolution resolution) {
+            this.resolutionSelector = resolution.createResolutionSelector();
+            return this;
+        }
+
+        /**
+         * Set the resolution of the images used for analysis (decoding).
+         * <p>
+         * If not set, CameraX will use its default (currently 640x480).
+         *
+         * @param resolutionSelector to use
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder setResolutionSelector(@NonNull final ResolutionSelector resolutionSelector) {
+            this.resolutionSelector = resolutionSelector;
+            return this;
+        }
+
+        /**
+         * Set the backpressure strategy for the analysis images.
+         * <p>
+         * One of:
+         * <ul>
+         *     <li>{@link ImageAnalysis#STRATEGY_KEEP_ONLY_LATEST}: (the default) frames arriving
+         *     while decoding are dropped, and only the latest is kept</li>
+         *     <li>{@link ImageAnalysis#STRATEGY_BLOCK_PRODUCER}: frames are queued,
+         *     see {@link #setImageQueueDepth(int)}</li>
+         * </ul>
+         * Invalid values are ignored.
+         *
+         * @param strategy to use
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder setBackpressureStrategy(final int strategy) {
+            if (strategy == ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST
+                || strategy == ImageAnalysis.STRATEGY_BLOCK_PRODUCER) {
+                this.backpressureStrategy = strategy;
+            }
+            return this;
+        }
+
+        /**
+         * Set the number of images available to the camera pipeline when using
+         * {@link ImageAnalysis#STRATEGY_BLOCK_PRODUCER}.
+         * Values smaller than {@code 1} are ignored.
+         *
+         * @param depth of the queue
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder setImageQueueDepth(final int depth) {
+            if (depth > 0) {
+                this.imageQueueDepth = depth;
+            }
+            return this;
+        }
+
+        /**
+         * Match the camera frame rate to the measured decoding throughput.
+         * <p>
+         * Surplus frames which would be dropped anyhow are no longer produced,
+         * which saves power. The rate is adjusted continuously as decoding speeds
+         * up or slows down.
+         *
+         * @param enabled flag
+         *
+         * @return this
+         *
+         * @see BarcodeScanner#getTargetFrameRateRange()
+         * @see BarcodeScanner#getEffectiveFrameRate()
+         */
+        @NonNull
+        public Builder setAdaptiveFrameRate(final boolean enabled) {
+            this.adaptiveFrameRate = enabled;
+            return this;
+        }
+
+        /**
+         * Only decode 1D barcodes, and only in a horizontal band of rows around
+         * the middle of the frame; i.e. along the laser line of {@link TzwViewfinderView}.
+         * <p>
+         * Much faster than decoding the full frame, but the user must aim the laser line
+         * across the barcode. Any 2D formats set are ignored.
+         * <p>
+         * Only used if {@link #setDecoderFactory(DecoderFactory)} is <strong>NOT</strong> called.
+         *
+         * @param bandHeight the height of the band, as a fraction {@code ]0..1]}
+         *                   of the frame height; use {@code 0} to disable.
+         *                   A typical value is {@link LaserBandDecoder#DEFAULT_BAND_HEIGHT}.
+         *
+         * @return this
+         *
+         * @see LaserBandDecoder
+         */
+        @NonNull
+        public Builder setLaserBandDecoding(final float bandHeight) {
+            this.laserBandHeight = Math.max(0, Math.min(1, bandHeight));
+            return this;
+        }
+
+        /**
+         * Try the readers for the formats which were recently decoded most often first.
+         * <p>
+         * Useful when many formats are enabled, but most scans are of a single format.
+         * <p>
+         * Only used if {@link #setDecoderFactory(DecoderFactory)} is <strong>NOT</strong> called.
+         *
+         * @param enabled flag
+         *
+         * @return this
+         *
+         * @see AdaptiveMultiFormatReader
+         */
+        @NonNull
+        public Builder setAdaptiveReaderOrder(final boolean enabled) {
+            this.adaptiveReaderOrder = enabled;
+            return this;
+        }
+
+        /**
+         * Set the binarizer used to convert the luminance data to black and white.
+         * <p>
+         * Only used if {@link #setDecoderFactory(DecoderFactory)} is <strong>NOT</strong> called.
+         * <p>
+         * The time spent in each binarizer is recorded in the
+         * {@link BarcodeScanner#getMetrics() metrics}.
+         *
+         * @param strategy to use; the default is {@link BinarizerStrategy#Hybrid}
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder setBinarizerStrategy(@NonNull final BinarizerStrategy strategy) {
+            this.binarizerStrategy = strategy;
+            return this;
+        }
+
+        /**
+         * Set the size of the window used by {@link BinarizerStrategy#IntegralImage}.
+         * <p>
+         * The window should be several times the size of a single barcode module
+         * (i.e. the smallest bar or square) as seen in the frame.
+         * <p>
+         * Only used if {@link #setDecoderFactory(DecoderFactory)} is <strong>NOT</strong> called.
+         * Negative values are ignored.
+         *
+         * @param windowSize the side of the square window in pixels;
+         *                   use {@code 0} (the default) for {@code 1/8} of the largest frame side
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder setBinarizerWindowSize(final int windowSize) {
+            if (windowSize >= 0) {
+                this.binarizerWindowSize = windowSize;
+            }
+            return this;
+        }
+
+        /**
+         * Add a {@link FrameFilter} which decides whether a frame is decoded at all.
+         * Filters are run in the order they are added.
+         *
+         * @param filter to add
+         *
+         * @return this
+         *
+         * @see PresenceFrameFilter
+         * @see SharpnessFrameFilter
+         * @see SceneChangeFrameFilter
+         */
+        @NonNull
+        public Builder addFrameFilter(@NonNull final FrameFilter filter) {
+            frameFilters.add(filter);
+            // Build the counter key once, not for every rejected frame.
+            frameFilterSkippedKeys.add(ScannerMetrics.FRAME_FILTER_SKIPPED + '.'
+                                       + filter.getClass().getSimpleName());
+            return this;
+        }
+
         /**
          * Set a custom {@link DecoderFactory}.
          * <p>
@@ -481,6 +1316,161 @@ public class BarcodeScanner
             return this;
         }
 
+        /**
+         * Add the scanner options.
+         * Unknown options (e.g. hints) are ignored.
+         *
+         * @param args a Bundle with {@link ScanOptions.Option} keys;
+         *             may contain other options which will be ignored.
+         *
+         * @return this
+         */
+        @NonNull
+        public Builder addOptions(@Nullable final Bundle args) {
+            if (args != null && !args.isEmpty()) {
+                if (args.containsKey(ScanOptions.Option.MULTI_SCALE_DECODING)) {
+                    multiScaleDecoding = args.getBoolean(
+                            ScanOptions.Option.MULTI_SCALE_DECODING);
+                }
+                if (args.getBoolean(ScanOptions.Option.BULK_MODE)) {
+                    scanMode = ScanMode.Bulk;
+                }
+                if (args.containsKey(ScanOptions.Option.BULK_DUPLICATE_TTL_MS)) {
+                    setBulkDuplicateTtl(args.getLong(ScanOptions.Option.BULK_DUPLICATE_TTL_MS));
+                }
+                if (args.containsKey(ScanOptions.Option.USE_SCANNER_POOL)) {
+                    usePool = args.getBoolean(ScanOptions.Option.USE_SCANNER_POOL);
+                }
+                if (args.containsKey(ScanOptions.Option.DELIVERY_INTERVAL_MS)) {
+                    setDeliveryInterval(args.getLong(ScanOptions.Option.DELIVERY_INTERVAL_MS));
+                }
+                if (args.containsKey(ScanOptions.Option.REGION_TRACKING)) {
+                    regionTracking = args.getBoolean(ScanOptions.Option.REGION_TRACKING);
+                }
+                final RotationStrategy rotation = RotationStrategy.getStrategy(
+                        args.getString(ScanOptions.Option.ROTATION_STRATEGY));
+                if (rotation != null) {
+                    rotationStrategy = rotation;
+                }
+                final AnalysisResolution resolution = AnalysisResolution.getResolution(
+                        args.getString(ScanOptions.Option.ANALYSIS_RESOLUTION));
+                if (resolution != null) {
+                    setAnalysisResolution(resolution);
+                }
+                if (args.containsKey(ScanOptions.Option.BACKPRESSURE_STRATEGY)) {
+                    setBackpressureStrategy(
+                            args.getInt(ScanOptions.Option.BACKPRESSURE_STRATEGY));
+                }
+                if (args.containsKey(ScanOptions.Option.IMAGE_QUEUE_DEPTH)) {
+                    setImageQueueDepth(args.getInt(ScanOptions.Option.IMAGE_QUEUE_DEPTH));
+                }
+                if (args.containsKey(ScanOptions.Option.ADAPTIVE_FRAME_RATE)) {
+                    adaptiveFrameRate = args.getBoolean(ScanOptions.Option.ADAPTIVE_FRAME_RATE);
+                }
+                if (args.containsKey(ScanOptions.Option.LASER_BAND_HEIGHT)) {
+                    setLaserBandDecoding(args.getFloat(ScanOptions.Option.LASER_BAND_HEIGHT));
+                }
+                if (args.containsKey(ScanOptions.Option.ADAPTIVE_READER_ORDER)) {
+                    adaptiveReaderOrder = args.getBoolean(
+                            ScanOptions.Option.ADAPTIVE_READER_ORDER);
+                }
+                final BinarizerStrategy binarizer = BinarizerStrategy.getStrategy(
+                        args.getString(ScanOptions.Option.BINARIZER_STRATEGY));
+                if (binarizer != null) {
+                    binarizerStrategy = binarizer;
+                }
+                if (args.containsKey(ScanOptions.Option.BINARIZER_WINDOW_SIZE)) {
+                    setBinarizerWindowSize(
+                            args.getInt(ScanOptions.Option.BINARIZER_WINDOW_SIZE));
+                }
+                if (args.getBoolean(ScanOptions.Option.PRESENCE_FILTER)) {
+                    addFrameFilter(new PresenceFrameFilter());
+                }
+                if (args.getBoolean(ScanOptions.Option.SHARPNESS_FILTER)) {
+                    addFrameFilter(new SharpnessFrameFilter());
+                }
+                if (args.getBoolean(ScanOptions.Option.SCENE_CHANGE_FILTER)) {
+                    addFrameFilter(new SceneChangeFrameFilter());
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Prepare for scanning with the current configuration, in the background;
+         * e.g. at startup, or when a scan button becomes visible.
+         * <p>
+         * The camera provider is resolved, and the configured decoder is created
+         * and run on a few synthetic frames; i.e. class loading and JIT compilation
+         * are done before the first real frame.
+         * <p>
+         * If {@link #setUsePool(boolean)} is enabled, the camera provider, executor
+         * and the warmed-up decoder are kept in the {@link ScannerPool} for the
+         * next scanner with the same configuration. Otherwise only the process-wide
+         * effects (e.g. class loading and JIT) remain.
+         *
+         * @param context Current context
+         */
+        public void prewarm(@NonNull final Context context) {
+            final DecoderFactory factory = createDecoderFactory(new EnumMap<>(hints));
+            if (usePool) {
+                final ScannerPool pool = ScannerPool.getInstance();
+                pool.getCameraProvider(context);
+                final String key = getDecoderPoolKey();
+                final ExecutorService executor = pool.acquireExecutor();
+                executor.execute(() -> {
+                    if (key != null) {
+                        final Decoder decoder = pool.acquireDecoder(key, factory);
+                        DecoderPrewarmer.run(decoder);
+                        pool.releaseDecoder(key, decoder);
+                    } else {
+                        DecoderPrewarmer.run(factory.createDecoder());
+                    }
+                    pool.releaseExecutor(executor);
+                });
+            } else {
+                ProcessCameraProvider.getInstance(context);
+                final ExecutorService executor = Executors.newSingleThreadExecutor();
+                executor.execute(() -> DecoderPrewarmer.run(factory.createDecoder()));
+                executor.shutdown();
+            }
+        }
+
+        @NonNull
+        private DecoderFactory createDecoderFactory(
+                @NonNull final Map<DecodeHintType, Object> decoderHints) {
+            if (decoderFactory != null) {
+                return decoderFactory;
+            } else if (laserBandHeight > 0) {
+                final float bandHeight = laserBandHeight;
+                return () -> new LaserBandDecoder(decoderHints, bandHeight,
+                                                  LaserBandDecoder.DEFAULT_ROW_COUNT);
+            } else {
+                final DefaultDecoderFactory factory = new DefaultDecoderFactory(decoderHints);
+                factory.setAdaptiveReaderOrder(adaptiveReaderOrder);
+                factory.setBinarizerStrategy(Objects.requireNonNullElse(binarizerStrategy,
+                                                                        BinarizerStrategy.Hybrid));
+                factory.setBinarizerWindowSize(binarizerWindowSize);
+                return factory;
+            }
+        }
+
+        /**
+         * Get the key identifying the decoder configuration in the {@link ScannerPool}.
+         *
+         * @return key; {@code null} if a custom factory is used, as those are not pooled
+         */
+        @Nullable
+        private String getDecoderPoolKey() {
+            if (decoderFactory != null) {
+                return null;
+            }
+            return hints + "|" + laserBandHeight
+                   + "|" + adaptiveReaderOrder
+                   + "|" + binarizerStrategy
+                   + "|" + binarizerWindowSize;
+        }
+
         /**
          * Create the scanner.
          *
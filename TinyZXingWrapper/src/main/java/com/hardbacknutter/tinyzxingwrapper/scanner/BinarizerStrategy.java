@@ -0,0 +1,56 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Which {@link com.google.zxing.Binarizer} is used to convert a frame to black and white.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public enum BinarizerStrategy {
+    /**
+     * {@link com.google.zxing.common.HybridBinarizer}: local thresholds per block.
+     * Copes with uneven lighting (shadows, glare), at a higher cost.
+     * <p>
+     * This is the default.
+     */
+    Hybrid,
+    /**
+     * {@link com.google.zxing.common.GlobalHistogramBinarizer}: a single threshold
+     * for the frame (and one per row for 1D barcodes). Cheap, but needs even lighting.
+     */
+    GlobalHistogram,
+    /**
+     * A local threshold per pixel, against the mean of a square window around it,
+     * computed with an integral image. The window size is configurable, which makes it
+     * better suited than {@link #Hybrid} for small codes in high resolution frames.
+     * The cost does not depend on the window size.
+     */
+    IntegralImage,
+    /**
+     * Measure the lighting of each frame and the recent success rate,
+     * and use {@link #GlobalHistogram} when the lighting is even,
+     * or {@link #Hybrid} otherwise.
+     */
+    Adaptive;
+
+    /**
+     * Helper method for converting a previously stored name from {@link #name()}
+     * back to the enum value.
+     *
+     * @param name to lookup
+     *
+     * @return enum value, or {@code null} if the name is not valid.
+     */
+    @Nullable
+    public static BinarizerStrategy getStrategy(@Nullable final String name) {
+        if (name != null) {
+            try {
+                return valueOf(name);
+            } catch (@NonNull final IllegalArgumentException ignore) {
+                // ignore
+            }
+        }
+        return null;
+    }
+}
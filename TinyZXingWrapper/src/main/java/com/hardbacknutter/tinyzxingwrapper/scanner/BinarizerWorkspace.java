@@ -0,0 +1,112 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+/**
+ * The storage used by {@link ReusableHybridBinarizer} and {@link IntegralImageBinarizer},
+ * kept across frames.
+ * <p>
+ * Storage is kept for the two most recently used image sizes, so that decoders
+ * which alternate between two sizes (e.g. {@link PyramidDecoder}) do not
+ * reallocate on every frame.
+ * <p>
+ * Not thread-safe; a workspace must only be used by a single {@link Decoder}.
+ */
+final class BinarizerWorkspace {
+
+    @Nullable
+    private Slot current;
+    @Nullable
+    private Slot previous;
+
+    /**
+     * Get the storage for an image of the given size.
+     * The returned matrix is cleared.
+     *
+     * @param width  of the image
+     * @param height of the image
+     *
+     * @return slot
+     */
+    @NonNull
+    Slot get(final int width,
+             final int height) {
+        if (current != null && current.matches(width, height)) {
+            current.matrix.clear();
+            return current;
+        }
+
+        final Slot slot;
+        if (previous != null && previous.matches(width, height)) {
+            slot = previous;
+            slot.matrix.clear();
+        } else {
+            slot = new Slot(width, height);
+        }
+        previous = current;
+        current = slot;
+        return slot;
+    }
+
+    /**
+     * The storage for a single image size.
+     */
+    static final class Slot {
+
+        /** One black point (threshold) per 8x8 block. */
+        @NonNull
+        final int[][] blackPoints;
+        @NonNull
+        final BitMatrix matrix;
+        /** Only allocated when needed. */
+        @Nullable
+        private int[] integralImage;
+        @Nullable
+        private BitArray row;
+
+        Slot(final int width,
+             final int height) {
+            final int subWidth = (width + ReusableHybridBinarizer.BLOCK_SIZE_MASK)
+                                 >> ReusableHybridBinarizer.BLOCK_SIZE_POWER;
+            final int subHeight = (height + ReusableHybridBinarizer.BLOCK_SIZE_MASK)
+                                  >> ReusableHybridBinarizer.BLOCK_SIZE_POWER;
+            blackPoints = new int[subHeight][subWidth];
+            matrix = new BitMatrix(width, height);
+        }
+
+        boolean matches(final int width,
+                        final int height) {
+            return matrix.getWidth() == width && matrix.getHeight() == height;
+        }
+
+        /**
+         * Get the storage for an integral image; i.e. {@code (width + 1) * (height + 1)}.
+         *
+         * @return array; the first row is all zeros, the content of the others is undefined
+         */
+        @NonNull
+        int[] getIntegralImage() {
+            if (integralImage == null) {
+                integralImage = new int[(matrix.getWidth() + 1) * (matrix.getHeight() + 1)];
+            }
+            return integralImage;
+        }
+
+        /**
+         * Get a row to build a single row of the matrix.
+         *
+         * @return row of the matrix width; the content is undefined
+         */
+        @NonNull
+        BitArray getRow() {
+            if (row == null) {
+                row = new BitArray(matrix.getWidth());
+            }
+            return row;
+        }
+    }
+}
@@ -31,6 +31,29 @@ public interface Decoder
     @Nullable
     Result decode(@NonNull LuminanceSource source);
 
+    /**
+     * Given an image source, attempt to decode all barcodes in it.
+     * Used with {@link ScanMode#Multi}.
+     * <p>
+     * Must not raise an exception.
+     * <p>
+     * Optional to implement, this default implementation returns the single result
+     * from {@link #decode(LuminanceSource)}, if any.
+     *
+     * @param source to decode
+     *
+     * @return a new list with the results; can be empty
+     */
+    @NonNull
+    default List<Result> decodeMultiple(@NonNull final LuminanceSource source) {
+        final List<Result> results = new ArrayList<>();
+        final Result result = decode(source);
+        if (result != null) {
+            results.add(result);
+        }
+        return results;
+    }
+
     /**
      * Call immediately after {@link #decode(LuminanceSource)}, from the same thread.
      * <p>
@@ -45,6 +68,19 @@ public interface Decoder
         return new ArrayList<>();
     }
 
+    /**
+     * Called once after construction, before the first {@link #decode(LuminanceSource)},
+     * to provide the metrics of the scanner.
+     * Decoders which wrap another decoder must pass it on.
+     * <p>
+     * Optional to implement, this default implementation does nothing.
+     *
+     * @param metrics to record into
+     */
+    default void setMetrics(@NonNull final ScannerMetrics metrics) {
+
+    }
+
     /**
      * Default do-nothing implementation for receiving points.
      *
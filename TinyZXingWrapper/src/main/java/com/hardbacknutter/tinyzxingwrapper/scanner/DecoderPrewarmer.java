@@ -0,0 +1,117 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.oned.Code128Writer;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Runs a handful of synthetic frames through a {@link Decoder}, so the class loading
+ * and JIT compilation of the decoding code is done before the first real frame.
+ * <p>
+ * The frames cover the common paths: an empty frame, sensor-like noise,
+ * and frames with a 2D and a 1D barcode which are decoded successfully
+ * (if the decoder is configured for their formats).
+ */
+final class DecoderPrewarmer {
+
+    /** The CameraX default analysis resolution. */
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    /** The number of times each frame is decoded. */
+    private static final int ROUNDS = 2;
+
+    private static final String TEXT = "TinyZXingWrapper";
+
+    private DecoderPrewarmer() {
+    }
+
+    /**
+     * Decode the synthetic frames.
+     *
+     * @param decoder to warm up
+     *
+     * @return the number of frames in which a barcode was found
+     */
+    @WorkerThread
+    static int run(@NonNull final Decoder decoder) {
+        final LuminanceSource[] frames = {
+                createBlankFrame(),
+                createNoiseFrame(),
+                createBarcodeFrame(BarcodeFormat.QR_CODE),
+                createBarcodeFrame(BarcodeFormat.CODE_128)
+        };
+
+        int found = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (final LuminanceSource frame : frames) {
+                if (decoder.decode(frame) != null) {
+                    found++;
+                }
+                // Not interested; but don't let them pile up
+                decoder.getPossibleResultPoints();
+            }
+        }
+        return found;
+    }
+
+    @NonNull
+    private static LuminanceSource createBlankFrame() {
+        final byte[] data = new byte[WIDTH * HEIGHT];
+        Arrays.fill(data, (byte) 0x80);
+        return new SimpleLuminanceSource(data, WIDTH, HEIGHT, WIDTH, 1);
+    }
+
+    @NonNull
+    private static LuminanceSource createNoiseFrame() {
+        final byte[] data = new byte[WIDTH * HEIGHT];
+        // Fixed seed; the frame does not need to differ between runs
+        new Random(WIDTH).nextBytes(data);
+        return new SimpleLuminanceSource(data, WIDTH, HEIGHT, WIDTH, 1);
+    }
+
+    /**
+     * Render a barcode, dark on a light background, in the center of a frame.
+     *
+     * @param format either {@link BarcodeFormat#QR_CODE} or {@link BarcodeFormat#CODE_128}
+     *
+     * @return frame
+     */
+    @NonNull
+    private static LuminanceSource createBarcodeFrame(@NonNull final BarcodeFormat format) {
+        final byte[] data = new byte[WIDTH * HEIGHT];
+        Arrays.fill(data, (byte) 0xE0);
+
+        final BitMatrix matrix;
+        try {
+            if (format == BarcodeFormat.QR_CODE) {
+                matrix = new QRCodeWriter().encode(TEXT, format, HEIGHT / 2, HEIGHT / 2);
+            } else {
+                matrix = new Code128Writer().encode(TEXT, format, WIDTH / 2, HEIGHT / 4);
+            }
+        } catch (@NonNull final WriterException | IllegalArgumentException e) {
+            // Should never happen with the fixed text; a blank frame is still useful
+            return new SimpleLuminanceSource(data, WIDTH, HEIGHT, WIDTH, 1);
+        }
+
+        final int left = (WIDTH - matrix.getWidth()) / 2;
+        final int top = (HEIGHT - matrix.getHeight()) / 2;
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            final int offset = (top + y) * WIDTH + left;
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                if (matrix.get(x, y)) {
+                    data[offset + x] = (byte) 0x20;
+                }
+            }
+        }
+        return new SimpleLuminanceSource(data, WIDTH, HEIGHT, WIDTH, 1);
+    }
+}
@@ -1,13 +1,19 @@
 package com.hardbacknutter.tinyzxingwrapper.scanner;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.UiThread;
 
 import com.google.zxing.Result;
 
+import java.util.List;
+
 /**
  * The {@link BarcodeScanner} will call the methods of this interface
  * when a scan is decoded.
+ * <p>
+ * All methods are called on the main thread, unless a callback executor was set with
+ * {@link BarcodeScanner.Builder#setCallbackExecutor(java.util.concurrent.Executor)};
+ * in which case they are called on that executor. Do not touch any views
+ * from the latter without switching to the main thread.
  */
 public interface DecoderResultListener {
 
@@ -16,14 +22,41 @@ public interface DecoderResultListener {
      *
      * @param result from the scanner
      **/
-    @UiThread
     void onResult(@NonNull Result result);
 
+    /**
+     * Several barcodes were successfully decoded since the previous delivery.
+     * Only called in {@link ScanMode#Continuous}, when the results of more than one
+     * frame are delivered at once; see {@link BarcodeScanner.Builder#setDeliveryInterval(long)}.
+     * <p>
+     * The default implementation calls {@link #onResult(Result)} for each result.
+     *
+     * @param results from the scanner, in the order they were decoded; never empty
+     */
+    default void onResults(@NonNull final List<Result> results) {
+        results.forEach(this::onResult);
+    }
+
+    /**
+     * One or more barcodes were successfully decoded.
+     * Only called in {@link ScanMode#Multi} and {@link ScanMode#Bulk}.
+     * <p>
+     * In {@link ScanMode#Multi}, the results are from a single frame.
+     * In {@link ScanMode#Bulk}, the results are the new barcodes found
+     * since the previous delivery.
+     * <p>
+     * The default implementation calls {@link #onResult(Result)} for each result.
+     *
+     * @param results from the scanner; never empty
+     */
+    default void onMultipleResults(@NonNull final List<Result> results) {
+        results.forEach(this::onResult);
+    }
+
     /**
      * Decoding failed.
      *
      * @param e the {@link Exception} or {@link Error} thrown
      */
-    @UiThread
     void onError(@NonNull Throwable e);
 }
@@ -5,6 +5,9 @@ import com.google.zxing.ResultPointCallback;
 /**
  * The {@link BarcodeScanner} will call the methods of this interface with feedback
  * on image size and result-points during scan decoding.
+ * <p>
+ * Always called on the main thread; regardless of the callback executor
+ * set for the {@link DecoderResultListener}.
  */
 @FunctionalInterface
 public interface DecoderResultPointsListener
@@ -3,16 +3,28 @@ package com.hardbacknutter.tinyzxingwrapper.scanner;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.google.zxing.Binarizer;
 import com.google.zxing.BinaryBitmap;
+import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.FormatException;
 import com.google.zxing.LuminanceSource;
 import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
+import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
-import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+import com.google.zxing.multi.MultipleBarcodeReader;
+import com.google.zxing.multi.qrcode.QRCodeMultiReader;
+import com.google.zxing.qrcode.QRCodeReader;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The default implementation of a {@link Decoder}.
@@ -23,7 +35,33 @@ public class DefaultDecoder
 
     @NonNull
     protected final Reader reader;
+    /**
+     * The hints passed to {@link Reader#decode(BinaryBitmap, Map)};
+     * not used for a {@link MultiFormatReader} which has its own.
+     */
+    @Nullable
+    protected final Map<DecodeHintType, ?> hints;
     protected final List<ResultPoint> points = new ArrayList<>();
+    /** The binarizer storage; reused for all frames. */
+    private final BinarizerWorkspace workspace = new BinarizerWorkspace();
+
+    @NonNull
+    private BinarizerStrategy binarizerStrategy = BinarizerStrategy.Hybrid;
+    /** Only used for {@link BinarizerStrategy#IntegralImage}. */
+    private int binarizerWindowSize;
+    /** Only set for {@link BinarizerStrategy#Adaptive}. */
+    @Nullable
+    private AdaptiveBinarizerSelector binarizerSelector;
+    /** The binarizer used for the current frame. */
+    @NonNull
+    private BinarizerStrategy currentBinarizer = BinarizerStrategy.Hybrid;
+    @Nullable
+    private TimedBinarizer timedBinarizer;
+    @Nullable
+    private ScannerMetrics metrics;
+    /** Created on first use. */
+    @Nullable
+    private MultipleBarcodeReader multipleReader;
 
     /**
      * Create a new Decoder with the specified Reader.
@@ -31,13 +69,87 @@ public class DefaultDecoder
      * @param reader the reader
      */
     protected DefaultDecoder(@NonNull final Reader reader) {
+        this(reader, null);
+    }
+
+    /**
+     * Create a new Decoder with the specified Reader and hints.
+     *
+     * @param reader the reader
+     * @param hints  to pass to the reader
+     */
+    protected DefaultDecoder(@NonNull final Reader reader,
+                             @Nullable final Map<DecodeHintType, ?> hints) {
         this.reader = reader;
+        this.hints = hints;
+    }
+
+    /**
+     * Set the binarizer to use.
+     *
+     * @param strategy to use
+     */
+    void setBinarizerStrategy(@NonNull final BinarizerStrategy strategy) {
+        binarizerStrategy = strategy;
+        binarizerSelector = strategy == BinarizerStrategy.Adaptive
+                            ? new AdaptiveBinarizerSelector() : null;
+    }
+
+    /**
+     * Set the window size for {@link BinarizerStrategy#IntegralImage}.
+     *
+     * @param windowSize in pixels; {@code 0} for automatic
+     */
+    void setBinarizerWindowSize(final int windowSize) {
+        binarizerWindowSize = windowSize;
+    }
+
+    @Override
+    public void setMetrics(@NonNull final ScannerMetrics metrics) {
+        this.metrics = metrics;
     }
 
     @Override
     @Nullable
     public Result decode(@NonNull final LuminanceSource source) {
-        return decode(toBitmap(source));
+        final Result result = decode(toBitmap(source));
+        onDecoded(result != null);
+        return result;
+    }
+
+    @Override
+    @NonNull
+    public List<Result> decodeMultiple(@NonNull final LuminanceSource source) {
+        final List<Result> results = decodeMultiple(toBitmap(source));
+        onDecoded(!results.isEmpty());
+        return results;
+    }
+
+    /**
+     * Update the binarizer statistics after decoding a frame.
+     *
+     * @param found {@code true} if a barcode was found
+     */
+    private void onDecoded(final boolean found) {
+        if (binarizerSelector != null) {
+            binarizerSelector.onDecoded(currentBinarizer, found);
+        }
+        if (metrics != null && timedBinarizer != null) {
+            final String timer;
+            switch (currentBinarizer) {
+                case GlobalHistogram:
+                    timer = ScannerMetrics.BINARIZER_GLOBAL_HISTOGRAM;
+                    break;
+                case IntegralImage:
+                    timer = ScannerMetrics.BINARIZER_INTEGRAL_IMAGE;
+                    break;
+                default:
+                    timer = ScannerMetrics.BINARIZER_HYBRID;
+                    break;
+            }
+            metrics.addTime(timer, timedBinarizer.getNanos());
+            timedBinarizer = null;
+        }
     }
 
     /**
@@ -49,7 +161,30 @@ public class DefaultDecoder
      */
     @NonNull
     protected BinaryBitmap toBitmap(@NonNull final LuminanceSource source) {
-        return new BinaryBitmap(new HybridBinarizer(source));
+        if (binarizerSelector != null) {
+            currentBinarizer = binarizerSelector.select(source);
+        } else {
+            currentBinarizer = binarizerStrategy;
+        }
+
+        final Binarizer binarizer;
+        switch (currentBinarizer) {
+            case GlobalHistogram:
+                binarizer = new GlobalHistogramBinarizer(source);
+                break;
+            case IntegralImage:
+                binarizer = new IntegralImageBinarizer(source, workspace, binarizerWindowSize);
+                break;
+            default:
+                binarizer = new ReusableHybridBinarizer(source, workspace);
+                break;
+        }
+
+        if (metrics != null) {
+            timedBinarizer = new TimedBinarizer(binarizer);
+            return new BinaryBitmap(timedBinarizer);
+        }
+        return new BinaryBitmap(binarizer);
     }
 
     /**
@@ -63,20 +198,108 @@ public class DefaultDecoder
     protected Result decode(@NonNull final BinaryBitmap bitmap) {
         points.clear();
         try {
-            if (reader instanceof MultiFormatReader) {
-                // Optimization - MultiFormatReader's normal decode() method is slow.
-                return ((MultiFormatReader) reader).decodeWithState(bitmap);
+            return decodeSingle(bitmap);
+        } catch (@NonNull final Exception ignore) {
+            return null;
+
+        } finally {
+            reader.reset();
+        }
+    }
+
+    /**
+     * Decode all barcodes in a binary bitmap.
+     * <p>
+     * A dedicated multi-reader is used for QR-codes only; otherwise the bitmap
+     * is recursively split around each barcode found by the reader.
+     * Both handle {@link DecodeHintType#ALSO_INVERTED} as {@link #decode(BinaryBitmap)} does.
+     *
+     * @param bitmap the binary bitmap
+     *
+     * @return the results; empty on any error
+     */
+    @NonNull
+    protected List<Result> decodeMultiple(@NonNull final BinaryBitmap bitmap) {
+        points.clear();
+        if (multipleReader == null) {
+            if (reader instanceof QRCodeReader) {
+                multipleReader = new QRCodeMultiReader();
             } else {
-                return reader.decode(bitmap);
+                // Each part of the bitmap is decoded the same way as a single barcode
+                multipleReader = new GenericMultipleBarcodeReader(new SingleReader());
             }
+        }
+        try {
+            Result[] results;
+            try {
+                results = multipleReader.decodeMultiple(bitmap, hints);
+            } catch (@NonNull final NotFoundException e) {
+                if (multipleReader instanceof QRCodeMultiReader
+                    && hints != null && hints.containsKey(DecodeHintType.ALSO_INVERTED)) {
+                    bitmap.getBlackMatrix().flip();
+                    results = multipleReader.decodeMultiple(bitmap, hints);
+                } else {
+                    throw e;
+                }
+            }
+            return new ArrayList<>(Arrays.asList(results));
         } catch (@NonNull final Exception ignore) {
-            return null;
+            return new ArrayList<>();
 
         } finally {
             reader.reset();
         }
     }
 
+    /**
+     * Decode a single barcode.
+     *
+     * @param bitmap the binary bitmap
+     *
+     * @return the Result
+     *
+     * @throws NotFoundException if no barcode was found
+     * @throws ChecksumException if a barcode was found but its checksum failed
+     * @throws FormatException   if a barcode was found but could not be decoded
+     */
+    @NonNull
+    private Result decodeSingle(@NonNull final BinaryBitmap bitmap)
+            throws NotFoundException, ChecksumException, FormatException {
+        if (reader instanceof MultiFormatReader) {
+            // Optimization - MultiFormatReader's normal decode() method is slow.
+            return ((MultiFormatReader) reader).decodeWithState(bitmap);
+        } else {
+            return decodeWithHints(bitmap);
+        }
+    }
+
+    /**
+     * Decode with a single specialized reader;
+     * also handles {@link DecodeHintType#ALSO_INVERTED} as {@link MultiFormatReader} does.
+     *
+     * @param bitmap the binary bitmap
+     *
+     * @return the Result
+     *
+     * @throws NotFoundException if no barcode was found
+     * @throws ChecksumException if a barcode was found but its checksum failed
+     * @throws FormatException   if a barcode was found but could not be decoded
+     */
+    @NonNull
+    private Result decodeWithHints(@NonNull final BinaryBitmap bitmap)
+            throws NotFoundException, ChecksumException, FormatException {
+        try {
+            return reader.decode(bitmap, hints);
+        } catch (@NonNull final ReaderException e) {
+            if (hints != null && hints.containsKey(DecodeHintType.ALSO_INVERTED)) {
+                // Calling all readers again with inverted image
+                bitmap.getBlackMatrix().flip();
+                return reader.decode(bitmap, hints);
+            }
+            throw e;
+        }
+    }
+
     @Override
     @NonNull
     public List<ResultPoint> getPossibleResultPoints() {
@@ -88,4 +311,38 @@ public class DefaultDecoder
         points.add(point);
     }
 
+    /**
+     * The reader used by the {@link GenericMultipleBarcodeReader}.
+     * <p>
+     * Decodes each part of the bitmap with {@link #decodeSingle(BinaryBitmap)};
+     * i.e. without setting the hints of a {@link MultiFormatReader} again for each part,
+     * and with the {@link DecodeHintType#ALSO_INVERTED} retry.
+     */
+    private final class SingleReader
+            implements Reader {
+
+        @Override
+        @NonNull
+        public Result decode(@NonNull final BinaryBitmap image)
+                throws NotFoundException, ChecksumException, FormatException {
+            return decodeSingle(image);
+        }
+
+        /**
+         * The hints are ignored; the decoder has its own.
+         */
+        @Override
+        @NonNull
+        public Result decode(@NonNull final BinaryBitmap image,
+                             @Nullable final Map<DecodeHintType, ?> hints)
+                throws NotFoundException, ChecksumException, FormatException {
+            return decodeSingle(image);
+        }
+
+        @Override
+        public void reset() {
+            reader.reset();
+        }
+    }
+
 }
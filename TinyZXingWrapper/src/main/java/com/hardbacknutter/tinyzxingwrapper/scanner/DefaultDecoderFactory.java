@@ -3,39 +3,241 @@ package com.hardbacknutter.tinyzxingwrapper.scanner;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.google.zxing.BarcodeFormat;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.MultiFormatReader;
+import com.google.zxing.Reader;
+import com.google.zxing.aztec.AztecReader;
+import com.google.zxing.datamatrix.DataMatrixReader;
+import com.google.zxing.maxicode.MaxiCodeReader;
+import com.google.zxing.oned.MultiFormatOneDReader;
+import com.google.zxing.oned.MultiFormatUPCEANReader;
+import com.google.zxing.pdf417.PDF417Reader;
+import com.google.zxing.qrcode.QRCodeReader;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * DecoderFactory that creates a {@link Decoder}
- * using a {@link MultiFormatReader} and any provided {@link DecodeHintType} hints.
+ * using a {@link LazyMultiFormatReader} and any provided {@link DecodeHintType} hints.
+ * <p>
+ * When the {@link DecodeHintType#POSSIBLE_FORMATS} are restricted to a single family,
+ * e.g. {@link BarcodeFamily#PRODUCT}, or a single 2D format,
+ * the specialized reader for that family/format is used directly instead.
+ * This skips the generic dispatch and the construction of unused readers.
+ * Otherwise, the individual readers are only created when first needed.
+ * <p>
+ * Creating a reader lazily only moves its cost from creating the decoder
+ * to the first decode that reaches it. The gain is in the readers which are never
+ * reached: with {@link DecodeHintType#TRY_HARDER} the 2D readers are tried first,
+ * and a frame with a QR-code never creates the 1D readers. Without it the 1D readers
+ * are tried first on every frame, so they are created with the decoder,
+ * and only the 2D readers after them are lazy.
+ * The {@code StartupBenchmarkTest} measures both phases against an eager
+ * {@link MultiFormatReader} in a new JVM for each run.
  */
 @SuppressWarnings("WeakerAccess")
 public class DefaultDecoderFactory
         implements DecoderFactory {
 
+    /** The formats handled by {@link MultiFormatUPCEANReader}. */
+    private static final Set<BarcodeFormat> UPC_EAN = EnumSet.of(BarcodeFormat.UPC_A,
+                                                                 BarcodeFormat.UPC_E,
+                                                                 BarcodeFormat.EAN_13,
+                                                                 BarcodeFormat.EAN_8);
+
     private final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
 
+    private boolean adaptiveReaderOrder;
+    @NonNull
+    private BinarizerStrategy binarizerStrategy = BinarizerStrategy.Hybrid;
+    private int binarizerWindowSize;
+
     protected DefaultDecoderFactory(@Nullable final Map<DecodeHintType, Object> hints) {
         if (hints != null) {
             this.hints.putAll(hints);
         }
     }
 
+    /**
+     * Set the binarizer to use.
+     *
+     * @param strategy to use
+     */
+    void setBinarizerStrategy(@NonNull final BinarizerStrategy strategy) {
+        this.binarizerStrategy = strategy;
+    }
+
+    /**
+     * Set the window size for {@link BinarizerStrategy#IntegralImage}.
+     *
+     * @param windowSize in pixels; {@code 0} for automatic
+     */
+    void setBinarizerWindowSize(final int windowSize) {
+        this.binarizerWindowSize = windowSize;
+    }
+
+    /**
+     * Order the readers by their recent success when more than one reader is needed.
+     *
+     * @param enabled flag
+     *
+     * @see AdaptiveMultiFormatReader
+     */
+    void setAdaptiveReaderOrder(final boolean enabled) {
+        this.adaptiveReaderOrder = enabled;
+    }
+
     @Override
     @NonNull
     public Decoder createDecoder() {
-        final MultiFormatReader reader = new MultiFormatReader();
-        final Decoder decoder = new DefaultDecoder(reader);
+        // Each decoder needs its own copy, as it will contain the decoder as the callback.
+        final Map<DecodeHintType, Object> decoderHints = normalize(hints);
+
+        final Reader reader = createReader(getPossibleFormats(decoderHints), decoderHints);
+        final DefaultDecoder decoder = new DefaultDecoder(reader, decoderHints);
+        decoder.setBinarizerStrategy(binarizerStrategy);
+        decoder.setBinarizerWindowSize(binarizerWindowSize);
 
-        // Use the decoder itself as the callback
-        hints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, decoder);
+        // Use the decoder itself as the callback.
+        // Lazily created readers share this map, and will see the callback as well.
+        decoderHints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, decoder);
 
-        reader.setHints(hints);
+        if (reader instanceof MultiFormatReader) {
+            ((MultiFormatReader) reader).setHints(decoderHints);
+        }
 
         return decoder;
     }
+
+    /**
+     * Create the most specific reader for the given formats.
+     *
+     * @param formats the formats to decode; an empty set means <strong>all</strong> formats.
+     * @param hints   the (normalized) hints
+     *
+     * @return reader
+     */
+    @NonNull
+    protected Reader createReader(@NonNull final Set<BarcodeFormat> formats,
+                                  @NonNull final Map<DecodeHintType, Object> hints) {
+        if (adaptiveReaderOrder && ReaderType.forFormats(formats).size() > 1) {
+            return new AdaptiveMultiFormatReader(formats, hints);
+        }
+
+        if (!formats.isEmpty()) {
+            if (UPC_EAN.containsAll(formats)) {
+                return new MultiFormatUPCEANReader(hints);
+            }
+            if (isOneD(formats)) {
+                return new MultiFormatOneDReader(hints);
+            }
+            if (formats.size() == 1) {
+                switch (formats.iterator().next()) {
+                    case QR_CODE:
+                        return new QRCodeReader();
+                    case DATA_MATRIX:
+                        return new DataMatrixReader();
+                    case AZTEC:
+                        return new AztecReader();
+                    case PDF_417:
+                        return new PDF417Reader();
+                    case MAXICODE:
+                        return new MaxiCodeReader();
+                    default:
+                        break;
+                }
+            }
+        }
+        return new LazyMultiFormatReader(formats, hints);
+    }
+
+    /**
+     * Check whether all formats are 1D formats.
+     *
+     * @param formats to check
+     *
+     * @return flag
+     */
+    private static boolean isOneD(@NonNull final Set<BarcodeFormat> formats) {
+        for (final BarcodeFormat format : formats) {
+            if (!BarcodeFamily.PRODUCT.contains(format)
+                && !BarcodeFamily.INDUSTRIAL.contains(format)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create a copy of the hints with the values converted to what the readers expect.
+     * <ul>
+     *     <li>{@link DecodeHintType#POSSIBLE_FORMATS} will contain
+     *         {@link BarcodeFormat}s instead of their names</li>
+     *     <li>hints which are enabled by their presence are removed
+     *         when set to {@code false}</li>
+     * </ul>
+     *
+     * @param hints to normalize
+     *
+     * @return a new map
+     */
+    @NonNull
+    static Map<DecodeHintType, Object> normalize(@NonNull final Map<DecodeHintType, ?> hints) {
+        final Map<DecodeHintType, Object> normalized = new EnumMap<>(DecodeHintType.class);
+        for (final Map.Entry<DecodeHintType, ?> entry : hints.entrySet()) {
+            final DecodeHintType hintType = entry.getKey();
+            if (hintType.getValueType().equals(Void.class)) {
+                if (!Boolean.FALSE.equals(entry.getValue())) {
+                    normalized.put(hintType, Boolean.TRUE);
+                }
+            } else {
+                normalized.put(hintType, entry.getValue());
+            }
+        }
+
+        final Set<BarcodeFormat> formats = getPossibleFormats(hints);
+        if (formats.isEmpty()) {
+            normalized.remove(DecodeHintType.POSSIBLE_FORMATS);
+        } else {
+            normalized.put(DecodeHintType.POSSIBLE_FORMATS, new ArrayList<>(formats));
+        }
+        return normalized;
+    }
+
+    /**
+     * Get the {@link DecodeHintType#POSSIBLE_FORMATS} from the given hints.
+     * <p>
+     * The list can contain either {@link BarcodeFormat}s or their names as Strings,
+     * e.g. when passed in from a {@link android.os.Bundle}.
+     * Unknown entries are ignored.
+     *
+     * @param hints to read
+     *
+     * @return the formats; an empty set means <strong>all</strong> formats.
+     */
+    @NonNull
+    static Set<BarcodeFormat> getPossibleFormats(@NonNull final Map<DecodeHintType, ?> hints) {
+        final Set<BarcodeFormat> formats = EnumSet.noneOf(BarcodeFormat.class);
+        final Object value = hints.get(DecodeHintType.POSSIBLE_FORMATS);
+        if (value instanceof Collection) {
+            for (final Object format : (Collection<?>) value) {
+                if (format instanceof BarcodeFormat) {
+                    formats.add((BarcodeFormat) format);
+                } else if (format instanceof String) {
+                    try {
+                        formats.add(BarcodeFormat.valueOf((String) format));
+                    } catch (@NonNull final IllegalArgumentException ignore) {
+                        // ignore
+                    }
+                }
+            }
+        }
+        return formats;
+    }
 }
@@ -0,0 +1,79 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * A half-resolution copy of another {@link LuminanceSource}.
+ * <p>
+ * Each destination pixel is the average of a 2x2 block of source pixels (box filter),
+ * produced in a single pass over the source matrix.
+ * An odd last row/column of the source is dropped.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DownsampledLuminanceSource
+        extends LuminanceSource {
+
+    /**
+     * The downsampled Y data; no padding.
+     */
+    @NonNull
+    private final byte[] data;
+
+    /**
+     * Constructor.
+     *
+     * @param source to downsample; must be at least 2x2 pixels
+     */
+    public DownsampledLuminanceSource(@NonNull final LuminanceSource source) {
+        super(source.getWidth() / 2, source.getHeight() / 2);
+
+        final int width = getWidth();
+        final int height = getHeight();
+        if (width == 0 || height == 0) {
+            throw new IllegalArgumentException("source too small to downsample");
+        }
+
+        final int srcWidth = source.getWidth();
+        final byte[] src = source.getMatrix();
+
+        data = new byte[width * height];
+        int dst = 0;
+        for (int y = 0; y < height; y++) {
+            int top = 2 * y * srcWidth;
+            int bottom = top + srcWidth;
+            for (int x = 0; x < width; x++) {
+                final int sum = (src[top] & 0xff) + (src[top + 1] & 0xff)
+                                + (src[bottom] & 0xff) + (src[bottom + 1] & 0xff);
+                // +2 to round to nearest
+                data[dst++] = (byte) ((sum + 2) >> 2);
+                top += 2;
+                bottom += 2;
+            }
+        }
+    }
+
+    @Override
+    @NonNull
+    public byte[] getRow(final int y,
+                         @Nullable byte[] row) {
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException("Requested row is outside the image: " + y);
+        }
+
+        final int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        System.arraycopy(data, y * width, row, 0, width);
+        return row;
+    }
+
+    @Override
+    @NonNull
+    public byte[] getMatrix() {
+        return data;
+    }
+}
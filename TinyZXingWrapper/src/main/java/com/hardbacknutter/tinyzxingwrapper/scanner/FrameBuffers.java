@@ -0,0 +1,57 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+/**
+ * The buffers used to convert camera frames into a {@link SimpleLuminanceSource},
+ * kept across frames.
+ * <p>
+ * A conversion copies the Y plane, and then optionally strips the padding, flips
+ * and rotates; each step writes to a work buffer which is not its input.
+ * Two work buffers, used in turn, are therefore enough for any number of steps.
+ * <p>
+ * The data of a converted frame is only valid until the next frame is converted.
+ * Not thread-safe; only used on the analysis thread.
+ */
+final class FrameBuffers {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    @NonNull
+    private byte[] yData = EMPTY;
+    @NonNull
+    private final byte[][] work = {EMPTY, EMPTY};
+
+    /**
+     * Get the buffer for the Y plane as delivered by the camera.
+     *
+     * @param size in bytes
+     *
+     * @return buffer of exactly the given size; the content is undefined
+     */
+    @NonNull
+    byte[] getYData(final int size) {
+        if (yData.length != size) {
+            yData = new byte[size];
+        }
+        return yData;
+    }
+
+    /**
+     * Get a work buffer to write the output of a conversion step to.
+     *
+     * @param size  in bytes
+     * @param input the input of the step, which must not be overwritten
+     *
+     * @return buffer of exactly the given size; the content is undefined
+     */
+    @NonNull
+    byte[] getWork(final int size,
+                   @NonNull final byte[] input) {
+        final int i = work[0] == input ? 1 : 0;
+        if (work[i].length != size) {
+            work[i] = new byte[size];
+        }
+        return work[i];
+    }
+}
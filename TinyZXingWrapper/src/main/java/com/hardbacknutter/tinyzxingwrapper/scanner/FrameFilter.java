@@ -0,0 +1,51 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A cheap test on the raw camera frame which decides whether the frame
+ * is worth copying and decoding at all.
+ * <p>
+ * Filters are called on the analysis thread, in the order they were added,
+ * before any data is copied. The first filter to reject a frame stops the chain.
+ *
+ * @see BarcodeScanner.Builder#addFrameFilter(FrameFilter)
+ */
+@FunctionalInterface
+public interface FrameFilter {
+
+    /**
+     * Test a frame.
+     * <p>
+     * The buffer must not be modified; its position and limit are undefined
+     * and should not be relied upon. Use absolute reads only.
+     * <p>
+     * Must not raise an exception.
+     *
+     * @param yData       the Y (luminance) plane of the frame
+     * @param width       of the frame
+     * @param height      of the frame
+     * @param rowStride   the distance between the start of two consecutive rows
+     * @param pixelStride the distance between two consecutive pixels in a row
+     *
+     * @return {@code true} to decode the frame; {@code false} to skip it
+     */
+    boolean accept(@NonNull ByteBuffer yData,
+                   int width,
+                   int height,
+                   int rowStride,
+                   int pixelStride);
+
+    /**
+     * Called after a frame accepted by all filters was decoded.
+     * <p>
+     * Optional to implement, this default implementation does nothing.
+     *
+     * @param found {@code true} if a barcode was found
+     */
+    default void onDecoded(final boolean found) {
+
+    }
+}
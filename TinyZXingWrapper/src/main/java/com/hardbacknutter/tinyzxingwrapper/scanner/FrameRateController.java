@@ -0,0 +1,161 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CaptureRequest;
+import android.util.Range;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
+import androidx.camera.camera2.interop.Camera2CameraControl;
+import androidx.camera.camera2.interop.Camera2CameraInfo;
+import androidx.camera.camera2.interop.CaptureRequestOptions;
+import androidx.camera.camera2.interop.ExperimentalCamera2Interop;
+import androidx.camera.core.Camera;
+
+/**
+ * Matches the camera frame rate to the measured decoding throughput.
+ * <p>
+ * Frames produced faster than they can be decoded are simply dropped by the
+ * analysis pipeline, but they still cost ISP time, memory bandwidth and battery.
+ * This class measures the sustained time to analyze a frame (filtering, copying,
+ * rotating and decoding it), and periodically requests a matching
+ * {@link CaptureRequest#CONTROL_AE_TARGET_FPS_RANGE} from the camera.
+ * <p>
+ * Note that the AE target range is a per-session setting; i.e. the preview will
+ * run at the same frame rate as the analysis.
+ */
+@OptIn(markerClass = ExperimentalCamera2Interop.class)
+final class FrameRateController {
+
+    /** Minimum time between two adjustments. */
+    private static final long ADJUST_INTERVAL_NANOS = 1_000_000_000L;
+    /** Smoothing factor for the exponential moving averages. */
+    private static final double EMA_ALPHA = 0.1;
+    /** Let the camera run slightly faster than the decoder so it never starves. */
+    private static final double HEADROOM = 1.2;
+
+    @Nullable
+    private volatile Camera2CameraControl cameraControl;
+    @Nullable
+    private volatile Range<Integer>[] availableRanges;
+    @Nullable
+    private volatile Range<Integer> appliedRange;
+
+    /** Only written from the analysis thread. */
+    private double avgAnalyzeNanos;
+    private volatile double avgFrameIntervalNanos;
+    private long lastFrameTimestamp;
+    private long lastAdjustNanos;
+
+    /**
+     * Start controlling the given camera.
+     *
+     * @param camera to control
+     */
+    void attach(@NonNull final Camera camera) {
+        availableRanges = Camera2CameraInfo
+                .from(camera.getCameraInfo())
+                .getCameraCharacteristic(
+                        CameraCharacteristics.CONTROL_AE_AVAILABLE_TARGET_FPS_RANGES);
+        cameraControl = Camera2CameraControl.from(camera.getCameraControl());
+        appliedRange = null;
+    }
+
+    /**
+     * Stop controlling the camera.
+     */
+    void detach() {
+        cameraControl = null;
+        appliedRange = null;
+    }
+
+    /**
+     * Called from the analysis thread for each frame which was decoded.
+     *
+     * @param frameTimestamp the timestamp of the frame (nanoseconds)
+     * @param analyzeNanos   the time it took to analyze the frame; i.e. not only
+     *                       the decoding, but also the preparation of the image
+     */
+    void onFrameDecoded(final long frameTimestamp,
+                        final long analyzeNanos) {
+        avgAnalyzeNanos = ema(avgAnalyzeNanos, analyzeNanos);
+        if (lastFrameTimestamp > 0 && frameTimestamp > lastFrameTimestamp) {
+            avgFrameIntervalNanos = ema(avgFrameIntervalNanos,
+                                        frameTimestamp - lastFrameTimestamp);
+        }
+        lastFrameTimestamp = frameTimestamp;
+
+        final long now = System.nanoTime();
+        if (now - lastAdjustNanos >= ADJUST_INTERVAL_NANOS) {
+            lastAdjustNanos = now;
+            adjust();
+        }
+    }
+
+    private static double ema(final double average,
+                              final long value) {
+        return average == 0 ? value : average + EMA_ALPHA * (value - average);
+    }
+
+    private void adjust() {
+        final Camera2CameraControl control = cameraControl;
+        final Range<Integer>[] ranges = availableRanges;
+        if (control == null || ranges == null || ranges.length == 0 || avgAnalyzeNanos == 0) {
+            return;
+        }
+
+        final int wanted = (int) Math.ceil(HEADROOM * 1_000_000_000L / avgAnalyzeNanos);
+
+        // The lowest upper-bound which still satisfies the wanted rate;
+        // on a tie, prefer the higher lower-bound (shorter exposures, less blur).
+        Range<Integer> best = null;
+        Range<Integer> fastest = null;
+        for (final Range<Integer> range : ranges) {
+            if (fastest == null || range.getUpper() > fastest.getUpper()) {
+                fastest = range;
+            }
+            if (range.getUpper() >= wanted) {
+                if (best == null
+                    || range.getUpper() < best.getUpper()
+                    || range.getUpper().equals(best.getUpper())
+                       && range.getLower() > best.getLower()) {
+                    best = range;
+                }
+            }
+        }
+        if (best == null) {
+            // decoding is faster than the camera
+            best = fastest;
+        }
+
+        if (!best.equals(appliedRange)) {
+            appliedRange = best;
+            control.setCaptureRequestOptions(
+                    new CaptureRequestOptions.Builder()
+                            .setCaptureRequestOption(CaptureRequest.CONTROL_AE_TARGET_FPS_RANGE,
+                                                     best)
+                            .build());
+        }
+    }
+
+    /**
+     * Get the AE target frame rate range currently requested from the camera.
+     *
+     * @return range, or {@code null} if none applied (yet)
+     */
+    @Nullable
+    Range<Integer> getTargetFrameRateRange() {
+        return appliedRange;
+    }
+
+    /**
+     * Get the effective rate at which frames are being decoded.
+     *
+     * @return frames per second; {@code 0} if not known (yet)
+     */
+    float getEffectiveFrameRate() {
+        final double interval = avgFrameIntervalNanos;
+        return interval == 0 ? 0 : (float) (1_000_000_000L / interval);
+    }
+}
@@ -0,0 +1,137 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+/**
+ * A local threshold binarizer (Bradley-Roth adaptive thresholding) built on
+ * a summed-area table (integral image).
+ * <p>
+ * A pixel is black when it is darker than the mean of the square window centered
+ * on it, by at least {@link #SENSITIVITY_PERCENT}. Thanks to the integral image,
+ * the mean of any window costs four lookups; i.e. the cost per pixel does not
+ * depend on the window size.
+ * <p>
+ * Unlike {@link com.google.zxing.common.HybridBinarizer}, which uses fixed 8x8 blocks,
+ * the window size can be matched to the expected module size of the barcodes.
+ * <p>
+ * The integral image and the {@link BitMatrix} are taken from a {@link BinarizerWorkspace},
+ * and the matrix is written row by row in a single sweep.
+ * Rows for 1D barcodes use the {@link GlobalHistogramBinarizer} logic.
+ */
+final class IntegralImageBinarizer
+        extends GlobalHistogramBinarizer {
+
+    /** Use a window of {@code 1/n} of the largest image side when no size was set. */
+    private static final int DEFAULT_WINDOW_DIVISOR = 8;
+    /** A pixel must be this much darker than its window mean to be black. */
+    private static final int SENSITIVITY_PERCENT = 15;
+    /** Below this size a local threshold makes no sense. */
+    private static final int MINIMUM_DIMENSION = 40;
+
+    @NonNull
+    private final BinarizerWorkspace workspace;
+    private final int windowSize;
+    @Nullable
+    private BitMatrix matrix;
+
+    /**
+     * Constructor.
+     *
+     * @param source     to binarize
+     * @param workspace  to use
+     * @param windowSize the side of the square window in pixels;
+     *                   use {@code 0} for {@code 1/8} of the largest image side
+     */
+    IntegralImageBinarizer(@NonNull final LuminanceSource source,
+                           @NonNull final BinarizerWorkspace workspace,
+                           final int windowSize) {
+        super(source);
+        this.workspace = workspace;
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    @NonNull
+    public BitMatrix getBlackMatrix()
+            throws NotFoundException {
+        if (matrix != null) {
+            return matrix;
+        }
+        final LuminanceSource source = getLuminanceSource();
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        if (width < MINIMUM_DIMENSION || height < MINIMUM_DIMENSION) {
+            matrix = super.getBlackMatrix();
+            return matrix;
+        }
+
+        final byte[] luminances = source.getMatrix();
+        final BinarizerWorkspace.Slot slot = workspace.get(width, height);
+        final int[] integral = slot.getIntegralImage();
+        final BitArray row = slot.getRow();
+
+        // integral[(y + 1) * stride + (x + 1)] is the sum of all pixels in [0..x] x [0..y];
+        // the first row and column are zero. Very large images can overflow an int,
+        // but the sum of a window is still correct as the arithmetic wraps around.
+        final int stride = width + 1;
+        for (int y = 0, src = 0; y < height; y++) {
+            final int above = y * stride;
+            final int current = above + stride;
+            int rowSum = 0;
+            for (int x = 0; x < width; x++) {
+                rowSum += luminances[src++] & 0xFF;
+                integral[current + x + 1] = integral[above + x + 1] + rowSum;
+            }
+        }
+
+        final int window = windowSize > 0
+                           ? windowSize : Math.max(width, height) / DEFAULT_WINDOW_DIVISOR;
+        final int half = Math.max(1, window / 2);
+
+        for (int y = 0, src = 0; y < height; y++) {
+            final int top = Math.max(0, y - half) * stride;
+            final int bottom = Math.min(height, y + half + 1) * stride;
+            final int rows = (bottom - top) / stride;
+
+            int bits = 0;
+            for (int x = 0; x < width; x++) {
+                final int left = Math.max(0, x - half);
+                final int right = Math.min(width, x + half + 1);
+                final int sum = integral[bottom + right] - integral[bottom + left]
+                                - integral[top + right] + integral[top + left];
+                final long area = (long) rows * (right - left);
+                // pixel <= mean * (100 - SENSITIVITY) / 100, without the division
+                if ((luminances[src++] & 0xFF) * area * 100
+                    <= (long) sum * (100 - SENSITIVITY_PERCENT)) {
+                    bits |= 1 << (x & 0x1f);
+                }
+                if ((x & 0x1f) == 0x1f) {
+                    row.setBulk(x & ~0x1f, bits);
+                    bits = 0;
+                }
+            }
+            if ((width & 0x1f) != 0) {
+                row.setBulk(width & ~0x1f, bits);
+            }
+            slot.matrix.setRow(y, row);
+        }
+
+        matrix = slot.matrix;
+        return matrix;
+    }
+
+    @Override
+    @NonNull
+    public Binarizer createBinarizer(@NonNull final LuminanceSource source) {
+        // Used for rotated/cropped sources; these must not share our storage.
+        return new IntegralImageBinarizer(source, new BinarizerWorkspace(), windowSize);
+    }
+}
@@ -0,0 +1,185 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultMetadataType;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.oned.MultiFormatOneDReader;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Decoder} for 1D barcodes which only decodes a horizontal band of rows
+ * around the middle of the frame; i.e. where {@link TzwViewfinderView} draws its laser line.
+ * <p>
+ * Instead of binarizing the entire frame, only the scanned rows are read and each
+ * is thresholded on its own histogram (as {@link GlobalHistogramBinarizer#getBlackRow}
+ * does). The rows in the band are tried from the middle outwards, in both directions.
+ * <p>
+ * The user must aim the laser line across the barcode.
+ */
+@SuppressWarnings("WeakerAccess")
+public class LaserBandDecoder
+        implements Decoder {
+
+    /** The default height of the band, as a fraction of the frame height. */
+    public static final float DEFAULT_BAND_HEIGHT = 0.1f;
+    /** The default number of rows decoded within the band. */
+    public static final int DEFAULT_ROW_COUNT = 8;
+
+    @NonNull
+    private final MultiFormatOneDReader reader;
+    @NonNull
+    private final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+    private final float bandHeight;
+    private final int rowCount;
+
+    private final List<ResultPoint> points = new ArrayList<>();
+    @Nullable
+    private BitArray row;
+
+    /**
+     * Constructor using default settings.
+     *
+     * @param hints the decoder hints; only the 1D formats are used
+     */
+    public LaserBandDecoder(@NonNull final Map<DecodeHintType, ?> hints) {
+        this(hints, DEFAULT_BAND_HEIGHT, DEFAULT_ROW_COUNT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param hints      the decoder hints; only the 1D formats are used
+     * @param bandHeight the height of the band, as a fraction {@code ]0..1]}
+     *                   of the frame height
+     * @param rowCount   the number of rows to decode within the band
+     */
+    public LaserBandDecoder(@NonNull final Map<DecodeHintType, ?> hints,
+                            final float bandHeight,
+                            final int rowCount) {
+        this.bandHeight = Math.max(0, Math.min(1, bandHeight));
+        this.rowCount = Math.max(1, rowCount);
+
+        final Set<BarcodeFormat> requested = DefaultDecoderFactory.getPossibleFormats(hints);
+        List<BarcodeFormat> formats = getOneDFormats()
+                .filter(requested::contains)
+                .collect(Collectors.toList());
+        if (formats.isEmpty()) {
+            // none requested, or no 1D formats requested; use all 1D formats.
+            formats = getOneDFormats().collect(Collectors.toList());
+        }
+
+        this.hints.putAll(DefaultDecoderFactory.normalize(hints));
+        this.hints.put(DecodeHintType.POSSIBLE_FORMATS, formats);
+        this.hints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, this);
+        reader = new MultiFormatOneDReader(this.hints);
+    }
+
+    @NonNull
+    private static Stream<BarcodeFormat> getOneDFormats() {
+        return Stream.concat(BarcodeFamily.PRODUCT.stream(), BarcodeFamily.INDUSTRIAL.stream());
+    }
+
+    @Override
+    @Nullable
+    public Result decode(@NonNull final LuminanceSource source) {
+        points.clear();
+
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final int middle = height / 2;
+        final int step = Math.max(1, (int) (height * bandHeight) / rowCount);
+
+        final GlobalHistogramBinarizer binarizer = new GlobalHistogramBinarizer(source);
+        try {
+            // middle, middle - step, middle + step, middle - 2 * step, ...
+            for (int i = 0; i < rowCount; i++) {
+                final int offset = ((i + 1) / 2) * step;
+                final int y = (i & 1) == 0 ? middle + offset : middle - offset;
+                if (y < 0 || y >= height) {
+                    break;
+                }
+
+                try {
+                    row = binarizer.getBlackRow(y, row);
+                } catch (@NonNull final ReaderException e) {
+                    // no contrast in this row
+                    continue;
+                }
+
+                final Result result = decodeRow(y, row, width);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        } finally {
+            reader.reset();
+        }
+    }
+
+    /**
+     * Decode a single row in both directions.
+     *
+     * @param y     the row number
+     * @param bits  the binarized row
+     * @param width of the frame
+     *
+     * @return a Result or {@code null}
+     */
+    @Nullable
+    private Result decodeRow(final int y,
+                             @NonNull final BitArray bits,
+                             final int width) {
+        try {
+            return reader.decodeRow(y, bits, hints);
+        } catch (@NonNull final ReaderException ignore) {
+            // try the other direction
+        }
+
+        bits.reverse();
+        try {
+            final Result result = reader.decodeRow(y, bits, hints);
+            // mirror the points back, as done by OneDReader
+            result.putMetadata(ResultMetadataType.ORIENTATION, 180);
+            final ResultPoint[] resultPoints = result.getResultPoints();
+            if (resultPoints != null) {
+                for (int i = 0; i < resultPoints.length; i++) {
+                    if (resultPoints[i] != null) {
+                        resultPoints[i] = new ResultPoint(width - resultPoints[i].getX() - 1,
+                                                          resultPoints[i].getY());
+                    }
+                }
+            }
+            return result;
+        } catch (@NonNull final ReaderException ignore) {
+            return null;
+        }
+    }
+
+    @Override
+    @NonNull
+    public List<ResultPoint> getPossibleResultPoints() {
+        return new ArrayList<>(points);
+    }
+
+    @Override
+    public void foundPossibleResultPoint(@NonNull final ResultPoint point) {
+        points.add(point);
+    }
+}
@@ -0,0 +1,136 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link Reader} which, like {@link com.google.zxing.MultiFormatReader}, tries
+ * a number of readers in turn, but only creates each reader when it is first tried.
+ * <p>
+ * Creating the decoder is therefore nearly free, and the classes of a reader which
+ * is never reached (e.g. a barcode of the first format is found on every frame)
+ * are never loaded.
+ * <p>
+ * The order is the one used by {@link com.google.zxing.MultiFormatReader}:
+ * the 1D readers first, unless {@link DecodeHintType#TRY_HARDER} is set, in which case
+ * they are tried last. As with {@link com.google.zxing.oned.MultiFormatOneDReader},
+ * the 1D readers share the scanning of the image rows.
+ * When tried first, the 1D readers are reached on every frame, and are therefore
+ * created up front; only the other readers are created on first use.
+ * Inverted images ({@link DecodeHintType#ALSO_INVERTED}) are handled by the {@link DefaultDecoder}.
+ * <p>
+ * Not thread-safe; use one instance per decoding thread.
+ */
+@SuppressWarnings("WeakerAccess")
+public class LazyMultiFormatReader
+        implements Reader {
+
+    /** The 1D readers; {@code null} if no 1D formats are to be decoded. */
+    @Nullable
+    private final OneDReaderGroup oneDReader;
+    @NonNull
+    private final List<LazyReader> twoDReaders = new ArrayList<>();
+    private final boolean oneDFirst;
+
+    /**
+     * Constructor.
+     *
+     * @param formats the formats to decode; an empty set means <strong>all</strong> formats.
+     * @param hints   the (normalized) hints
+     */
+    public LazyMultiFormatReader(@NonNull final Set<BarcodeFormat> formats,
+                                 @NonNull final Map<DecodeHintType, ?> hints) {
+        final List<LazyReader> oneD = new ArrayList<>();
+        for (final ReaderType type : ReaderType.forFormats(formats)) {
+            if (type.isOneD()) {
+                oneD.add(new LazyReader(type, hints));
+            } else {
+                twoDReaders.add(new LazyReader(type, hints));
+            }
+        }
+        oneDReader = oneD.isEmpty() ? null : new OneDReaderGroup(oneD);
+        // Same as MultiFormatReader: the 1D readers are slow with TRY_HARDER
+        oneDFirst = !hints.containsKey(DecodeHintType.TRY_HARDER);
+        if (oneDFirst) {
+            // The 1D readers are tried on every frame; creating them on first use
+            // would only move the cost into the first decode.
+            for (final LazyReader reader : oneD) {
+                reader.get();
+            }
+        }
+    }
+
+    @Override
+    @NonNull
+    public Result decode(@NonNull final BinaryBitmap image)
+            throws NotFoundException {
+        return decode(image, null);
+    }
+
+    @Override
+    @NonNull
+    public Result decode(@NonNull final BinaryBitmap image,
+                         @Nullable final Map<DecodeHintType, ?> hints)
+            throws NotFoundException {
+        if (oneDFirst && oneDReader != null) {
+            try {
+                return oneDReader.decode(image, hints);
+            } catch (@NonNull final ReaderException ignore) {
+                // continue
+            }
+        }
+        for (final LazyReader reader : twoDReaders) {
+            try {
+                return reader.get().decode(image, hints);
+            } catch (@NonNull final ReaderException ignore) {
+                // continue
+            }
+        }
+        if (!oneDFirst && oneDReader != null) {
+            try {
+                return oneDReader.decode(image, hints);
+            } catch (@NonNull final ReaderException ignore) {
+                // continue
+            }
+        }
+        throw NotFoundException.getNotFoundInstance();
+    }
+
+    /**
+     * Get the number of readers which were created so far.
+     *
+     * @return count
+     */
+    int getCreatedCount() {
+        int count = oneDReader != null ? oneDReader.getCreatedCount() : 0;
+        for (final LazyReader reader : twoDReaders) {
+            if (reader.isCreated()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void reset() {
+        if (oneDReader != null) {
+            oneDReader.reset();
+        }
+        for (final LazyReader reader : twoDReaders) {
+            reader.reset();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.Reader;
+
+import java.util.Map;
+
+/**
+ * Holds a reader of a given {@link ReaderType}, which is only created when first needed.
+ * <p>
+ * Not thread-safe.
+ */
+final class LazyReader {
+
+    @NonNull
+    private final ReaderType type;
+    /** The (normalized) hints used to create the reader. */
+    @NonNull
+    private final Map<DecodeHintType, ?> hints;
+    @Nullable
+    private Reader reader;
+
+    /**
+     * Constructor.
+     *
+     * @param type  of the reader
+     * @param hints the (normalized) hints
+     */
+    LazyReader(@NonNull final ReaderType type,
+               @NonNull final Map<DecodeHintType, ?> hints) {
+        this.type = type;
+        this.hints = hints;
+    }
+
+    @NonNull
+    ReaderType getType() {
+        return type;
+    }
+
+    /**
+     * Get the reader, creating it if needed.
+     *
+     * @return reader
+     */
+    @NonNull
+    Reader get() {
+        if (reader == null) {
+            reader = type.create(hints);
+        }
+        return reader;
+    }
+
+    /**
+     * Check whether the reader was created.
+     *
+     * @return flag
+     */
+    boolean isCreated() {
+        return reader != null;
+    }
+
+    /**
+     * Reset the reader, if it was created.
+     */
+    void reset() {
+        if (reader != null) {
+            reader.reset();
+        }
+    }
+}
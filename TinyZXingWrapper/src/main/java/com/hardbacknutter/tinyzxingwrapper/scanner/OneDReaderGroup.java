@@ -0,0 +1,105 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.oned.OneDReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The lazy equivalent of {@link com.google.zxing.oned.MultiFormatOneDReader}:
+ * each row is extracted once, and handed to all the 1D readers in turn.
+ * <p>
+ * Scanning the rows (and binarizing them) is the bulk of the work of a 1D reader;
+ * trying the 1D readers one after the other would repeat it for each of them.
+ * <p>
+ * Not thread-safe; use one instance per decoding thread.
+ */
+final class OneDReaderGroup
+        extends OneDReader {
+
+    @NonNull
+    private final List<LazyReader> readers;
+    /** The reader which produced the last result. */
+    @Nullable
+    private LazyReader lastHit;
+
+    /**
+     * Constructor.
+     *
+     * @param readers the 1D readers, in the order they are tried
+     */
+    OneDReaderGroup(@NonNull final List<LazyReader> readers) {
+        this.readers = new ArrayList<>(readers);
+    }
+
+    @Override
+    @NonNull
+    public Result decodeRow(final int rowNumber,
+                            @NonNull final BitArray row,
+                            @Nullable final Map<DecodeHintType, ?> hints)
+            throws NotFoundException {
+        for (final LazyReader reader : readers) {
+            try {
+                // All 1D reader types are a OneDReader
+                final Result result = ((OneDReader) reader.get())
+                        .decodeRow(rowNumber, row, hints);
+                lastHit = reader;
+                return result;
+            } catch (@NonNull final ReaderException ignore) {
+                // continue
+            }
+        }
+        throw NotFoundException.getNotFoundInstance();
+    }
+
+    /**
+     * Get the reader which produced the last result.
+     *
+     * @return reader, or {@code null} if there was no result yet
+     */
+    @Nullable
+    LazyReader getLastHit() {
+        return lastHit;
+    }
+
+    /**
+     * Change the order in which the readers are tried.
+     *
+     * @param order the same readers as passed to the constructor, in the new order
+     */
+    void setOrder(@NonNull final List<LazyReader> order) {
+        readers.clear();
+        readers.addAll(order);
+    }
+
+    /**
+     * Get the number of readers which were created so far.
+     *
+     * @return count
+     */
+    int getCreatedCount() {
+        int count = 0;
+        for (final LazyReader reader : readers) {
+            if (reader.isCreated()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void reset() {
+        for (final LazyReader reader : readers) {
+            reader.reset();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.ResultPointCallback;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.oned.MultiFormatOneDReader;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Decoder} for frames which are <strong>not</strong> rotated into
+ * display orientation; see {@link RotationStrategy#None}.
+ * <p>
+ * The frame is first given as-is to the actual decoder. 2D barcodes are
+ * rotation-invariant, and 1D barcodes with their bars running across the rows
+ * of the frame are found there.
+ * <p>
+ * For the 1D formats in {@link BarcodeFamily#PRODUCT} and {@link BarcodeFamily#INDUSTRIAL}
+ * the columns of the frame are then scanned using a {@link TransposedLuminanceSource}.
+ * This is the typical case of a phone held in portrait mode, and it avoids the full-frame
+ * copy a rotation would need.
+ * Whichever orientation last produced a result is tried first.
+ */
+@SuppressWarnings("WeakerAccess")
+public class OrientationAgnosticDecoder
+        implements Decoder {
+
+    @NonNull
+    private final Decoder decoder;
+    /** {@code null} if none of the requested formats is a 1D format. */
+    @Nullable
+    private final MultiFormatOneDReader oneDReader;
+    @NonNull
+    private final Map<DecodeHintType, Object> oneDHints = new EnumMap<>(DecodeHintType.class);
+
+    /** The possible points found while scanning the columns; in frame coordinates. */
+    private final List<ResultPoint> columnPoints = new ArrayList<>();
+
+    private boolean columnsFirst = true;
+
+    /**
+     * Constructor.
+     *
+     * @param decoder the actual decoder
+     * @param hints   the decoder hints
+     */
+    public OrientationAgnosticDecoder(@NonNull final Decoder decoder,
+                                      @NonNull final Map<DecodeHintType, ?> hints) {
+        this.decoder = decoder;
+
+        final Set<BarcodeFormat> requested = DefaultDecoderFactory.getPossibleFormats(hints);
+        final List<BarcodeFormat> formats =
+                Stream.concat(BarcodeFamily.PRODUCT.stream(),
+                              BarcodeFamily.INDUSTRIAL.stream())
+                      .filter(format -> requested.isEmpty() || requested.contains(format))
+                      .collect(Collectors.toList());
+
+        if (formats.isEmpty()) {
+            oneDReader = null;
+        } else {
+            oneDHints.putAll(DefaultDecoderFactory.normalize(hints));
+            oneDHints.put(DecodeHintType.POSSIBLE_FORMATS, formats);
+            // Points are found in transposed coordinates; swap x/y back.
+            oneDHints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK,
+                          (ResultPointCallback) point ->
+                                  columnPoints.add(transpose(point)));
+            oneDReader = new MultiFormatOneDReader(oneDHints);
+        }
+    }
+
+    @Override
+    @Nullable
+    public Result decode(@NonNull final LuminanceSource source) {
+        columnPoints.clear();
+
+        Result result;
+        if (columnsFirst) {
+            result = decodeColumns(source);
+            if (result == null) {
+                result = decoder.decode(source);
+                if (result != null) {
+                    columnsFirst = false;
+                }
+            }
+        } else {
+            result = decoder.decode(source);
+            if (result == null) {
+                result = decodeColumns(source);
+                if (result != null) {
+                    columnsFirst = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The frame is decoded as-is for multiple barcodes;
+     * the columns are only scanned for a single 1D barcode if none were found.
+     */
+    @Override
+    @NonNull
+    public List<Result> decodeMultiple(@NonNull final LuminanceSource source) {
+        columnPoints.clear();
+
+        final List<Result> results = decoder.decodeMultiple(source);
+        if (results.isEmpty()) {
+            final Result result = decodeColumns(source);
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    @Nullable
+    private Result decodeColumns(@NonNull final LuminanceSource source) {
+        if (oneDReader == null) {
+            return null;
+        }
+        try {
+            final BinaryBitmap bitmap = new BinaryBitmap(
+                    new GlobalHistogramBinarizer(new TransposedLuminanceSource(source)));
+            return transpose(oneDReader.decode(bitmap, oneDHints));
+        } catch (@NonNull final Exception ignore) {
+            return null;
+        } finally {
+            oneDReader.reset();
+        }
+    }
+
+    @Override
+    @NonNull
+    public List<ResultPoint> getPossibleResultPoints() {
+        final List<ResultPoint> points = new ArrayList<>(decoder.getPossibleResultPoints());
+        points.addAll(columnPoints);
+        return points;
+    }
+
+    @Override
+    public void setMetrics(@NonNull final ScannerMetrics metrics) {
+        decoder.setMetrics(metrics);
+    }
+
+    @Override
+    public void foundPossibleResultPoint(@NonNull final ResultPoint point) {
+        decoder.foundPossibleResultPoint(point);
+    }
+
+    @NonNull
+    private static ResultPoint transpose(@NonNull final ResultPoint point) {
+        //noinspection SuspiciousNameCombination
+        return new ResultPoint(point.getY(), point.getX());
+    }
+
+    @NonNull
+    private static Result transpose(@NonNull final Result result) {
+        final ResultPoint[] points = result.getResultPoints();
+        if (points != null) {
+            for (int i = 0; i < points.length; i++) {
+                if (points[i] != null) {
+                    points[i] = transpose(points[i]);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,122 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Skips frames which do not contain anything resembling a barcode;
+ * e.g. while the user is still aiming the camera.
+ * <p>
+ * The frame is divided in a grid of tiles, and the luminance is sampled on a
+ * strided subsample. A sample is an edge when it differs strongly from its right
+ * or lower neighbour. Barcodes are dense with edges; a tile whose edge density
+ * reaches the threshold counts as barcode-like. The frame is accepted when
+ * at least the required number of tiles is barcode-like.
+ * <p>
+ * The thresholds can be tuned using the
+ * {@link ScannerMetrics#FRAME_FILTER_PASSED}/{@link ScannerMetrics#FRAME_FILTER_SKIPPED}
+ * counters.
+ */
+@SuppressWarnings("WeakerAccess")
+public class PresenceFrameFilter
+        implements FrameFilter {
+
+    /** Sample every n-th pixel, horizontally and vertically. */
+    public static final int DEFAULT_STEP = 4;
+    /** The minimal luminance difference between two samples to count as an edge. */
+    public static final int DEFAULT_EDGE_THRESHOLD = 24;
+    /** The minimal fraction of edge samples for a tile to be barcode-like. */
+    public static final float DEFAULT_MIN_EDGE_DENSITY = 0.2f;
+    /** The minimal number of barcode-like tiles. */
+    public static final int DEFAULT_MIN_TILES = 1;
+
+    /** The frame is divided in a grid of n x n tiles. */
+    private static final int GRID = 8;
+
+    private final int step;
+    private final int edgeThreshold;
+    private final float minEdgeDensity;
+    private final int minTiles;
+
+    /**
+     * Constructor using default settings.
+     */
+    public PresenceFrameFilter() {
+        this(DEFAULT_STEP, DEFAULT_EDGE_THRESHOLD, DEFAULT_MIN_EDGE_DENSITY, DEFAULT_MIN_TILES);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param step           sample every n-th pixel; must be {@code >= 1}
+     * @param edgeThreshold  the minimal luminance difference {@code [0..255]}
+     *                       between two samples to count as an edge
+     * @param minEdgeDensity the minimal fraction {@code [0..1]} of edge samples
+     *                       for a tile to be barcode-like
+     * @param minTiles       the minimal number of barcode-like tiles (out of 64)
+     */
+    public PresenceFrameFilter(final int step,
+                               final int edgeThreshold,
+                               final float minEdgeDensity,
+                               final int minTiles) {
+        if (step < 1) {
+            throw new IllegalArgumentException("step must be >= 1");
+        }
+        this.step = step;
+        this.edgeThreshold = edgeThreshold;
+        this.minEdgeDensity = minEdgeDensity;
+        this.minTiles = minTiles;
+    }
+
+    @Override
+    public boolean accept(@NonNull final ByteBuffer yData,
+                          final int width,
+                          final int height,
+                          final int rowStride,
+                          final int pixelStride) {
+        final int tileWidth = width / GRID;
+        final int tileHeight = height / GRID;
+        if (tileWidth <= step || tileHeight <= step) {
+            // too small to judge
+            return true;
+        }
+
+        final int xStep = step * pixelStride;
+        final int yStep = step * rowStride;
+
+        int barcodeTiles = 0;
+        for (int ty = 0; ty < GRID; ty++) {
+            final int top = ty * tileHeight;
+            for (int tx = 0; tx < GRID; tx++) {
+                final int left = tx * tileWidth;
+
+                int samples = 0;
+                int edges = 0;
+                // Stop one step short of the tile border so the neighbours are in range.
+                for (int y = top; y < top + tileHeight - step; y += step) {
+                    int offset = y * rowStride + left * pixelStride;
+                    for (int x = left; x < left + tileWidth - step; x += step) {
+                        final int pixel = yData.get(offset) & 0xFF;
+                        final int right = yData.get(offset + xStep) & 0xFF;
+                        final int below = yData.get(offset + yStep) & 0xFF;
+                        if (Math.abs(pixel - right) >= edgeThreshold
+                            || Math.abs(pixel - below) >= edgeThreshold) {
+                            edges++;
+                        }
+                        samples++;
+                        offset += xStep;
+                    }
+                }
+
+                if (edges >= minEdgeDensity * samples) {
+                    barcodeTiles++;
+                    if (barcodeTiles >= minTiles) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
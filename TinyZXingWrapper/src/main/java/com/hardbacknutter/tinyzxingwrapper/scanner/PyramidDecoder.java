@@ -0,0 +1,167 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link Decoder} which decodes a half-resolution level of the image first,
+ * and only decodes the full-resolution image when the half-resolution level
+ * shows some structure (i.e. possible result points were found) but failed to decode.
+ * <p>
+ * Large codes will decode at a quarter of the pixel cost.
+ * To make sure small codes (which might not produce any result points at
+ * the half-resolution level) are not missed altogether, the full-resolution image
+ * is also decoded periodically.
+ */
+@SuppressWarnings("WeakerAccess")
+public class PyramidDecoder
+        implements Decoder {
+
+    /**
+     * Images where the smallest side is below this value are always decoded
+     * at full resolution.
+     */
+    public static final int DEFAULT_MIN_DIMENSION = 480;
+    /**
+     * Decode the full-resolution image at least every n frames.
+     */
+    public static final int DEFAULT_FULL_RESOLUTION_INTERVAL = 4;
+
+    @NonNull
+    private final Decoder decoder;
+    private final int minDimension;
+    private final int fullResolutionInterval;
+
+    /** The scale of the image level from which the last result (points) came. */
+    private int lastScale = 1;
+    private int frameCount;
+
+    /**
+     * Constructor using default settings.
+     *
+     * @param decoder the actual decoder
+     */
+    public PyramidDecoder(@NonNull final Decoder decoder) {
+        this(decoder, DEFAULT_MIN_DIMENSION, DEFAULT_FULL_RESOLUTION_INTERVAL);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param decoder                the actual decoder
+     * @param minDimension           the smallest image side before using the
+     *                               half-resolution level
+     * @param fullResolutionInterval decode the full-resolution image at least every n frames;
+     *                               use {@code 0} to never force it.
+     */
+    public PyramidDecoder(@NonNull final Decoder decoder,
+                          final int minDimension,
+                          final int fullResolutionInterval) {
+        this.decoder = decoder;
+        this.minDimension = minDimension;
+        this.fullResolutionInterval = fullResolutionInterval;
+    }
+
+    @Override
+    @Nullable
+    public Result decode(@NonNull final LuminanceSource source) {
+        frameCount++;
+
+        if (Math.min(source.getWidth(), source.getHeight()) >= minDimension) {
+            lastScale = 2;
+            final Result result = decoder.decode(new DownsampledLuminanceSource(source));
+            if (result != null) {
+                return scale(result, lastScale);
+            }
+
+            final boolean forceFullResolution = fullResolutionInterval > 0
+                                                && frameCount % fullResolutionInterval == 0;
+            if (!forceFullResolution && decoder.getPossibleResultPoints().isEmpty()) {
+                // Nothing resembling a barcode at this level
+                return null;
+            }
+        }
+
+        lastScale = 1;
+        return decoder.decode(source);
+    }
+
+    /**
+     * Multiple barcodes are typically small; the full-resolution image is always used.
+     */
+    @Override
+    @NonNull
+    public List<Result> decodeMultiple(@NonNull final LuminanceSource source) {
+        lastScale = 1;
+        return decoder.decodeMultiple(source);
+    }
+
+    @Override
+    @NonNull
+    public List<ResultPoint> getPossibleResultPoints() {
+        final List<ResultPoint> points = decoder.getPossibleResultPoints();
+        if (lastScale == 1) {
+            return points;
+        }
+        return points.stream()
+                     .map(point -> scale(point, lastScale))
+                     .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public void setMetrics(@NonNull final ScannerMetrics metrics) {
+        decoder.setMetrics(metrics);
+    }
+
+    @Override
+    public void foundPossibleResultPoint(@NonNull final ResultPoint point) {
+        decoder.foundPossibleResultPoint(point);
+    }
+
+    @NonNull
+    private static ResultPoint scale(@NonNull final ResultPoint point,
+                                     final int scale) {
+        return new ResultPoint(point.getX() * scale, point.getY() * scale);
+    }
+
+    /**
+     * Map a result decoded from a downsampled level back to full-resolution coordinates.
+     *
+     * @param result to map
+     * @param scale  of the level
+     *
+     * @return a new Result
+     */
+    @NonNull
+    private static Result scale(@NonNull final Result result,
+                                final int scale) {
+        final ResultPoint[] points = result.getResultPoints();
+        final ResultPoint[] scaled;
+        if (points == null) {
+            scaled = null;
+        } else {
+            scaled = new ResultPoint[points.length];
+            for (int i = 0; i < points.length; i++) {
+                // points can contain null elements
+                scaled[i] = points[i] == null ? null : scale(points[i], scale);
+            }
+        }
+
+        final Result scaledResult = new Result(result.getText(),
+                                               result.getRawBytes(),
+                                               result.getNumBits(),
+                                               scaled,
+                                               result.getBarcodeFormat(),
+                                               result.getTimestamp());
+        scaledResult.putAllMetadata(result.getResultMetadata());
+        return scaledResult;
+    }
+}
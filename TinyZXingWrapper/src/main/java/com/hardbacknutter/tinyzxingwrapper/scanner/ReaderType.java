@@ -0,0 +1,127 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.Reader;
+import com.google.zxing.aztec.AztecReader;
+import com.google.zxing.datamatrix.DataMatrixReader;
+import com.google.zxing.maxicode.MaxiCodeReader;
+import com.google.zxing.oned.CodaBarReader;
+import com.google.zxing.oned.Code128Reader;
+import com.google.zxing.oned.Code39Reader;
+import com.google.zxing.oned.Code93Reader;
+import com.google.zxing.oned.ITFReader;
+import com.google.zxing.oned.MultiFormatUPCEANReader;
+import com.google.zxing.oned.rss.RSS14Reader;
+import com.google.zxing.oned.rss.expanded.RSSExpandedReader;
+import com.google.zxing.pdf417.PDF417Reader;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The individual ZXing readers, and the formats each of them decodes.
+ * <p>
+ * The order of the constants is the order used by {@link com.google.zxing.MultiFormatReader}.
+ */
+enum ReaderType {
+    UpcEan(BarcodeFormat.UPC_A, BarcodeFormat.UPC_E, BarcodeFormat.EAN_13, BarcodeFormat.EAN_8),
+    Code39(BarcodeFormat.CODE_39),
+    Code93(BarcodeFormat.CODE_93),
+    Code128(BarcodeFormat.CODE_128),
+    Itf(BarcodeFormat.ITF),
+    Codabar(BarcodeFormat.CODABAR),
+    Rss14(BarcodeFormat.RSS_14),
+    RssExpanded(BarcodeFormat.RSS_EXPANDED),
+    QrCode(BarcodeFormat.QR_CODE),
+    DataMatrix(BarcodeFormat.DATA_MATRIX),
+    Aztec(BarcodeFormat.AZTEC),
+    Pdf417(BarcodeFormat.PDF_417),
+    MaxiCode(BarcodeFormat.MAXICODE);
+
+    @NonNull
+    private final List<BarcodeFormat> formats;
+
+    ReaderType(@NonNull final BarcodeFormat... formats) {
+        this.formats = List.of(formats);
+    }
+
+    /**
+     * Get the reader types needed to decode the given formats.
+     *
+     * @param formats to decode; an empty set means <strong>all</strong> formats.
+     *
+     * @return reader types, in the default order
+     */
+    @NonNull
+    static List<ReaderType> forFormats(@NonNull final Set<BarcodeFormat> formats) {
+        // No streams; this is on the startup path, see DefaultDecoderFactory
+        final List<ReaderType> types = new ArrayList<>();
+        for (final ReaderType type : values()) {
+            if (formats.isEmpty() || !Collections.disjoint(type.formats, formats)) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Check whether this is one of the 1D (linear) types.
+     *
+     * @return flag
+     */
+    boolean isOneD() {
+        return ordinal() < QrCode.ordinal();
+    }
+
+    /**
+     * Create a new reader of this type.
+     * <p>
+     * Each case references its reader class directly, so reader classes of types
+     * which are never created are never loaded.
+     *
+     * @param hints the (normalized) hints
+     *
+     * @return new reader
+     */
+    @NonNull
+    Reader create(@NonNull final Map<DecodeHintType, ?> hints) {
+        switch (this) {
+            case UpcEan:
+                return new MultiFormatUPCEANReader(hints);
+            case Code39:
+                return new Code39Reader(hints.containsKey(
+                        DecodeHintType.ASSUME_CODE_39_CHECK_DIGIT));
+            case Code93:
+                return new Code93Reader();
+            case Code128:
+                return new Code128Reader();
+            case Itf:
+                return new ITFReader();
+            case Codabar:
+                return new CodaBarReader();
+            case Rss14:
+                return new RSS14Reader();
+            case RssExpanded:
+                return new RSSExpandedReader();
+            case QrCode:
+                return new QRCodeReader();
+            case DataMatrix:
+                return new DataMatrixReader();
+            case Aztec:
+                return new AztecReader();
+            case Pdf417:
+                return new PDF417Reader();
+            case MaxiCode:
+                return new MaxiCodeReader();
+            default:
+                throw new IllegalStateException(name());
+        }
+    }
+}
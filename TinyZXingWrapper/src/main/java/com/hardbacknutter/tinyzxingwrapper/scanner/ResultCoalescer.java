@@ -0,0 +1,345 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Gathers the results and/or result points produced on the analysis thread,
+ * and delivers them on the given executor (normally the main thread) in a single batch.
+ * <p>
+ * At most one delivery is pending at any time; anything offered while a delivery
+ * is pending is added to that delivery. Depending on the interval, a delivery is posted:
+ * <ul>
+ *     <li>{@code < 0}: immediately</li>
+ *     <li>{@code 0}: on the next display frame</li>
+ *     <li>{@code > 0}: no sooner than the interval after the previous delivery</li>
+ * </ul>
+ * The display frame and interval are timed on the main thread. With an executor other
+ * than the main thread, the delivery itself is handed to that executor.
+ * <p>
+ * The duplicate checks of the {@link ScanMode}s are done on delivery, on the whole batch.
+ * <p>
+ * Must be created on the main thread.
+ */
+final class ResultCoalescer {
+
+    /** The maximum number of result points kept for a single delivery. */
+    private static final int MAX_POINTS = 32;
+
+    @NonNull
+    private final ScanMode scanMode;
+    private final long intervalMillis;
+    @NonNull
+    private final Executor executor;
+    /** {@code true} if the {@link #executor} runs on the main thread. */
+    private final boolean mainThread;
+    @Nullable
+    private final DecoderResultListener resultListener;
+    @NonNull
+    private final Supplier<DecoderResultPointsListener> resultPointsListenerSupplier;
+    /** Called after the result was delivered in {@link ScanMode#Single}. */
+    @NonNull
+    private final Runnable onSingleResult;
+    @NonNull
+    private final ScannerMetrics metrics;
+
+    @Nullable
+    private final Handler handler;
+    @Nullable
+    private final Choreographer choreographer;
+    @NonNull
+    private final Runnable deliverRunnable = this::deliver;
+    /** Used to hop from the main thread (timer) to the executor. */
+    @NonNull
+    private final Runnable executeRunnable = this::executeDelivery;
+    @NonNull
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> onTimer();
+
+    private final Object lock = new Object();
+    @GuardedBy("lock")
+    @NonNull
+    private List<Result> results = new ArrayList<>();
+    /** {@link ScanMode#Multi}: only the results of the latest frame are kept. */
+    @GuardedBy("lock")
+    @Nullable
+    private List<Result> frameResults;
+    @GuardedBy("lock")
+    @NonNull
+    private List<ResultPoint> points = new ArrayList<>();
+    @GuardedBy("lock")
+    private int imageWidth;
+    @GuardedBy("lock")
+    private int imageHeight;
+    @GuardedBy("lock")
+    private boolean scheduled;
+
+    /** Written on the delivery thread, read on the analysis thread. */
+    private volatile long lastDeliveryMillis;
+
+    /** Guards the state below; only contended if the executor is not serial. */
+    private final Object deliveryLock = new Object();
+    /** Prevent duplicate scans in {@link ScanMode#Continuous}. */
+    @GuardedBy("deliveryLock")
+    @Nullable
+    private String lastBarcodeText;
+    /** Prevent duplicate batches in {@link ScanMode#Multi}. */
+    @GuardedBy("deliveryLock")
+    @Nullable
+    private Set<String> lastBarcodeTexts;
+    /** {@link ScanMode#Single}: the result was delivered. */
+    @GuardedBy("deliveryLock")
+    private boolean done;
+
+    /**
+     * Constructor.
+     *
+     * @param scanMode                     the mode of the scanner
+     * @param intervalMillis               the minimal time between two deliveries;
+     *                                     see class docs
+     * @param executor                     to deliver on
+     * @param mainThread                   {@code true} if the executor runs
+     *                                     on the main thread
+     * @param resultListener               to deliver the results to;
+     *                                     {@code null} if no results are offered
+     * @param resultPointsListenerSupplier to get the (current) listener for the points
+     * @param onSingleResult               called after the result was delivered
+     *                                     in {@link ScanMode#Single}
+     * @param metrics                      to record the deliveries
+     */
+    @UiThread
+    ResultCoalescer(@NonNull final ScanMode scanMode,
+                    final long intervalMillis,
+                    @NonNull final Executor executor,
+                    final boolean mainThread,
+                    @Nullable final DecoderResultListener resultListener,
+                    @NonNull final Supplier<DecoderResultPointsListener>
+                            resultPointsListenerSupplier,
+                    @NonNull final Runnable onSingleResult,
+                    @NonNull final ScannerMetrics metrics) {
+        this.scanMode = scanMode;
+        this.intervalMillis = intervalMillis;
+        this.executor = executor;
+        this.mainThread = mainThread;
+        this.resultListener = resultListener;
+        this.resultPointsListenerSupplier = resultPointsListenerSupplier;
+        this.onSingleResult = onSingleResult;
+        this.metrics = metrics;
+
+        handler = intervalMillis > 0 ? new Handler(Looper.getMainLooper()) : null;
+        choreographer = intervalMillis == 0 ? Choreographer.getInstance() : null;
+    }
+
+    /**
+     * Forget the results delivered so far; e.g. when the scanner is resumed.
+     * Results which are pending are still delivered.
+     */
+    @AnyThread
+    void reset() {
+        synchronized (deliveryLock) {
+            done = false;
+            lastBarcodeText = null;
+            lastBarcodeTexts = null;
+        }
+    }
+
+    /**
+     * Offer a result decoded in {@link ScanMode#Single} or {@link ScanMode#Continuous}.
+     *
+     * @param result to deliver
+     */
+    @AnyThread
+    void offerResult(@NonNull final Result result) {
+        synchronized (lock) {
+            results.add(result);
+        }
+        onOffered();
+    }
+
+    /**
+     * Offer the results decoded from a single frame in {@link ScanMode#Multi}
+     * or {@link ScanMode#Bulk}.
+     *
+     * @param frameResults to deliver; never empty
+     */
+    @AnyThread
+    void offerResults(@NonNull final List<Result> frameResults) {
+        synchronized (lock) {
+            if (scanMode == ScanMode.Multi) {
+                // An older frame is no longer relevant
+                this.frameResults = frameResults;
+            } else {
+                results.addAll(frameResults);
+            }
+        }
+        onOffered();
+    }
+
+    /**
+     * Offer the possible result points found in a frame.
+     *
+     * @param width     of the frame
+     * @param height    of the frame
+     * @param newPoints in frame coordinates
+     */
+    @AnyThread
+    void offerPoints(final int width,
+                     final int height,
+                     @NonNull final List<ResultPoint> newPoints) {
+        synchronized (lock) {
+            imageWidth = width;
+            imageHeight = height;
+            for (final ResultPoint point : newPoints) {
+                if (points.size() >= MAX_POINTS) {
+                    break;
+                }
+                points.add(point);
+            }
+        }
+        onOffered();
+    }
+
+    private void onOffered() {
+        metrics.increment(ScannerMetrics.DELIVERY_OFFERED);
+        synchronized (lock) {
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+
+        if (handler != null) {
+            final long delay = lastDeliveryMillis + intervalMillis - SystemClock.uptimeMillis();
+            if (delay <= 0 && !mainThread) {
+                executor.execute(deliverRunnable);
+            } else {
+                handler.postDelayed(mainThread ? deliverRunnable : executeRunnable,
+                                    Math.max(0, delay));
+            }
+        } else if (choreographer != null) {
+            // postFrameCallback can be called from any thread
+            choreographer.postFrameCallback(frameCallback);
+        } else {
+            executor.execute(deliverRunnable);
+        }
+    }
+
+    @UiThread
+    private void onTimer() {
+        if (mainThread) {
+            deliver();
+        } else {
+            executeDelivery();
+        }
+    }
+
+    private void executeDelivery() {
+        executor.execute(deliverRunnable);
+    }
+
+    private void deliver() {
+        synchronized (deliveryLock) {
+            deliverLocked();
+        }
+    }
+
+    @GuardedBy("deliveryLock")
+    private void deliverLocked() {
+        final List<Result> batch;
+        final List<Result> frameBatch;
+        final List<ResultPoint> pointBatch;
+        final int width;
+        final int height;
+        synchronized (lock) {
+            batch = results;
+            frameBatch = frameResults;
+            pointBatch = points;
+            width = imageWidth;
+            height = imageHeight;
+            results = new ArrayList<>();
+            frameResults = null;
+            points = new ArrayList<>();
+            scheduled = false;
+        }
+        lastDeliveryMillis = SystemClock.uptimeMillis();
+        metrics.increment(ScannerMetrics.DELIVERY_BATCHES);
+
+        // Points first, so the viewfinder is up-to-date when the results are handled.
+        final DecoderResultPointsListener pointsListener = resultPointsListenerSupplier.get();
+        if (pointsListener != null && !pointBatch.isEmpty()) {
+            pointsListener.setImageSize(width, height);
+            pointBatch.forEach(pointsListener::foundPossibleResultPoint);
+        }
+
+        if (resultListener == null) {
+            return;
+        }
+        switch (scanMode) {
+            case Single:
+                if (!done && !batch.isEmpty()) {
+                    done = true;
+                    resultListener.onResult(batch.get(0));
+                    onSingleResult.run();
+                }
+                break;
+
+            case Continuous:
+                deliverContinuous(batch);
+                break;
+
+            case Multi:
+                if (frameBatch != null) {
+                    final Set<String> texts = frameBatch.stream()
+                                                        .map(Result::getText)
+                                                        .collect(Collectors.toSet());
+                    if (!texts.equals(lastBarcodeTexts)) {
+                        lastBarcodeTexts = texts;
+                        resultListener.onMultipleResults(frameBatch);
+                    }
+                }
+                break;
+
+            case Bulk:
+                // Already filtered for duplicates on the analysis thread
+                if (!batch.isEmpty()) {
+                    resultListener.onMultipleResults(batch);
+                }
+                break;
+        }
+    }
+
+    @GuardedBy("deliveryLock")
+    private void deliverContinuous(@NonNull final List<Result> batch) {
+        final List<Result> newResults = new ArrayList<>(batch.size());
+        for (final Result result : batch) {
+            // don't check on null/blank
+            if (!Objects.equals(lastBarcodeText, result.getText())) {
+                lastBarcodeText = result.getText();
+                newResults.add(result);
+            }
+        }
+        if (newResults.size() == 1) {
+            resultListener.onResult(newResults.get(0));
+        } else if (!newResults.isEmpty()) {
+            resultListener.onResults(newResults);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Interfaces for a reactive stream of results, with backpressure.
+ * <p>
+ * These mirror {@code java.util.concurrent.Flow} (which requires API 30)
+ * and follow the same rules; adapting them to Flow or any other
+ * reactive-streams library is a one-liner per method.
+ *
+ * @see BarcodeScanner#getResultPublisher(androidx.lifecycle.LifecycleOwner,
+ *         androidx.camera.view.PreviewView)
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ResultFlow {
+
+    private ResultFlow() {
+    }
+
+    /**
+     * A producer of items, received by subscribers.
+     *
+     * @param <T> the type of the items
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+
+        /**
+         * Add a subscriber.
+         * If the subscriber cannot be added, {@link Subscriber#onError(Throwable)}
+         * is called (after {@link Subscriber#onSubscribe(Subscription)}).
+         *
+         * @param subscriber to add
+         */
+        void subscribe(@NonNull Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items.
+     * <p>
+     * The methods are called one at a time, never concurrently.
+     *
+     * @param <T> the type of the items
+     */
+    public interface Subscriber<T> {
+
+        /**
+         * Called first, before any other method.
+         * No items are received until {@link Subscription#request(long)} is called.
+         *
+         * @param subscription to request items with, or to cancel
+         */
+        void onSubscribe(@NonNull Subscription subscription);
+
+        /**
+         * The next item; never more than requested.
+         *
+         * @param item the next item
+         */
+        void onNext(@NonNull T item);
+
+        /**
+         * Terminal: the publisher failed. No other methods will be called.
+         *
+         * @param throwable the failure
+         */
+        void onError(@NonNull Throwable throwable);
+
+        /**
+         * Terminal: there are no more items. No other methods will be called.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a publisher and a subscriber.
+     */
+    public interface Subscription {
+
+        /**
+         * Request more items. The demand is cumulative.
+         * A value {@code <= 0} fails the subscription.
+         *
+         * @param n the number of additional items;
+         *          {@link Long#MAX_VALUE} for an unbounded demand
+         */
+        void request(long n);
+
+        /**
+         * Stop receiving items. Items may still be received shortly after.
+         */
+        void cancel();
+    }
+}
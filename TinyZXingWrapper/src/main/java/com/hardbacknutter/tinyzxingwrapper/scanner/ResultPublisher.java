@@ -0,0 +1,254 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.Result;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Publishes the results of a {@link BarcodeScanner} to a single subscriber.
+ * A publisher is used once; any further subscriber is rejected.
+ * <p>
+ * Subscribing starts the scanner, cancelling stops it. The demand of the subscriber
+ * drives the scanner: frames are only analysed while there is outstanding demand
+ * which is not met by results already buffered; i.e. analysis pauses when the
+ * subscriber stops requesting, and resumes as soon as it requests more.
+ * <p>
+ * Results delivered in a batch (e.g. {@link ScanMode#Multi}) are buffered and
+ * emitted one by one as they are requested.
+ * In {@link ScanMode#Single}, the stream completes after the first result.
+ */
+final class ResultPublisher
+        implements ResultFlow.Publisher<Result>, DecoderResultListener {
+
+    private final boolean completeAfterFirst;
+    /** Starts the scanner with this publisher as the listener. */
+    @NonNull
+    private final Consumer<ResultPublisher> onStart;
+    /** Stops the scanner; can be called from any thread. */
+    @NonNull
+    private final Consumer<ResultPublisher> onStop;
+
+    private final Object lock = new Object();
+    @GuardedBy("lock")
+    @NonNull
+    private final ArrayDeque<Result> buffer = new ArrayDeque<>();
+    @GuardedBy("lock")
+    @Nullable
+    private ResultFlow.Subscriber<? super Result> subscriber;
+    @GuardedBy("lock")
+    private long demand;
+    @GuardedBy("lock")
+    private boolean cancelled;
+    /** Set when the scanner finished; the buffer is still drained. */
+    @GuardedBy("lock")
+    private boolean done;
+    @GuardedBy("lock")
+    @Nullable
+    private Throwable error;
+    /** Only one thread emits at a time; others leave a note for it. */
+    @GuardedBy("lock")
+    private boolean emitting;
+    @GuardedBy("lock")
+    private boolean missed;
+
+    /**
+     * Constructor.
+     *
+     * @param completeAfterFirst {@code true} to complete after the first result
+     * @param onStart            starts the scanner with the given listener
+     * @param onStop             stops the scanner started for the given publisher
+     */
+    ResultPublisher(final boolean completeAfterFirst,
+                    @NonNull final Consumer<ResultPublisher> onStart,
+                    @NonNull final Consumer<ResultPublisher> onStop) {
+        this.completeAfterFirst = completeAfterFirst;
+        this.onStart = onStart;
+        this.onStop = onStop;
+    }
+
+    @Override
+    public void subscribe(@NonNull final ResultFlow.Subscriber<? super Result> newSubscriber) {
+        final boolean accepted;
+        synchronized (lock) {
+            accepted = subscriber == null;
+            if (accepted) {
+                subscriber = newSubscriber;
+            }
+        }
+
+        if (!accepted) {
+            newSubscriber.onSubscribe(new ResultFlow.Subscription() {
+                @Override
+                public void request(final long n) {
+                    // ignore
+                }
+
+                @Override
+                public void cancel() {
+                    // ignore
+                }
+            });
+            newSubscriber.onError(new IllegalStateException("Already subscribed"));
+            return;
+        }
+
+        newSubscriber.onSubscribe(new ResultFlow.Subscription() {
+            @Override
+            public void request(final long n) {
+                if (n <= 0) {
+                    onError(new IllegalArgumentException("n must be > 0"));
+                    return;
+                }
+                synchronized (lock) {
+                    // Saturate at Long.MAX_VALUE
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                final boolean stop;
+                synchronized (lock) {
+                    stop = !cancelled;
+                    cancelled = true;
+                    buffer.clear();
+                }
+                if (stop) {
+                    onStop.accept(ResultPublisher.this);
+                }
+            }
+        });
+
+        final boolean start;
+        synchronized (lock) {
+            start = !cancelled;
+        }
+        if (start) {
+            onStart.accept(this);
+        }
+    }
+
+    /**
+     * Check whether the scanner should analyse the next frame.
+     *
+     * @return {@code true} if there is outstanding demand not met by buffered results
+     */
+    boolean hasDemand() {
+        synchronized (lock) {
+            return !cancelled && !done && demand > buffer.size();
+        }
+    }
+
+    @Override
+    public void onResult(@NonNull final Result result) {
+        synchronized (lock) {
+            if (cancelled || done) {
+                return;
+            }
+            buffer.add(result);
+            if (completeAfterFirst) {
+                done = true;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void onResults(@NonNull final List<Result> results) {
+        onMultipleResults(results);
+    }
+
+    @Override
+    public void onMultipleResults(@NonNull final List<Result> results) {
+        synchronized (lock) {
+            if (cancelled || done) {
+                return;
+            }
+            buffer.addAll(results);
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(@NonNull final Throwable e) {
+        synchronized (lock) {
+            if (cancelled || done) {
+                return;
+            }
+            done = true;
+            error = e;
+            // An error is not delayed by buffered results
+            buffer.clear();
+        }
+        drain();
+    }
+
+    /**
+     * Emit buffered results while there is demand, and the terminal signal when due.
+     * Can be called from any thread; the subscriber is never called concurrently.
+     */
+    private void drain() {
+        synchronized (lock) {
+            if (emitting) {
+                missed = true;
+                return;
+            }
+            emitting = true;
+        }
+
+        while (true) {
+            final ResultFlow.Subscriber<? super Result> target;
+            final Result next;
+            final Throwable failure;
+            synchronized (lock) {
+                target = subscriber;
+                if (cancelled || target == null) {
+                    emitting = false;
+                    return;
+                }
+                if (demand > 0 && !buffer.isEmpty()) {
+                    next = buffer.poll();
+                    if (demand != Long.MAX_VALUE) {
+                        demand--;
+                    }
+                    failure = null;
+                } else if (done && buffer.isEmpty()) {
+                    // Terminal; no further signals
+                    next = null;
+                    failure = error;
+                    cancelled = true;
+                } else {
+                    if (!missed) {
+                        emitting = false;
+                        return;
+                    }
+                    missed = false;
+                    continue;
+                }
+            }
+
+            if (next != null) {
+                target.onNext(next);
+            } else {
+                if (failure != null) {
+                    target.onError(failure);
+                } else {
+                    target.onComplete();
+                }
+                // The scanner may have stopped itself already; e.g. in Single mode.
+                onStop.accept(this);
+                synchronized (lock) {
+                    emitting = false;
+                }
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * How the analysis frames are brought into the display orientation before decoding.
+ * <p>
+ * The camera sensor is (nearly always) mounted in landscape orientation,
+ * so when the device is held in portrait, each frame must be rotated by 90 degrees.
+ * Use {@link ScannerMetrics#FRAME_PREPARE} to compare the per-frame cost on a device.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public enum RotationStrategy {
+    /**
+     * Rotate each frame in Java using {@link SimpleLuminanceSource#rotate(int)}.
+     * A full copy/transpose of the frame for each 90/180/270 degree rotation.
+     * <p>
+     * This is the default.
+     */
+    Java,
+    /**
+     * Let CameraX deliver frames which are already rotated.
+     * The rotation is done in native code before the frame reaches the analyser.
+     */
+    CameraX,
+    /**
+     * Never rotate; frames are decoded in sensor orientation.
+     * <p>
+     * 2D barcodes are rotation-invariant and decode regardless.
+     * 1D barcodes are decoded along both the rows and the columns of the frame,
+     * without copying it.
+     *
+     * @see OrientationAgnosticDecoder
+     */
+    None;
+
+    /**
+     * Helper method for converting a previously stored name from {@link #name()}
+     * back to the enum value.
+     *
+     * @param name to lookup
+     *
+     * @return enum value, or {@code null} if the name is not valid.
+     */
+    @Nullable
+    public static RotationStrategy getStrategy(@Nullable final String name) {
+        if (name != null) {
+            try {
+                return valueOf(name);
+            } catch (@NonNull final IllegalArgumentException ignore) {
+                // ignore
+            }
+        }
+        return null;
+    }
+}
@@ -1,5 +1,7 @@
 package com.hardbacknutter.tinyzxingwrapper.scanner;
 
+import java.util.List;
+
 /**
  * Possible scan modes.
  */
@@ -12,7 +14,23 @@ public enum ScanMode {
     /**
      * Keep scanning, returning the results after each scan.
      */
-    Continuous(1);
+    Continuous(1),
+    /**
+     * Keep scanning, returning all barcodes found in a frame as a single batch.
+     *
+     * @see DecoderResultListener#onMultipleResults(List)
+     */
+    Multi(2),
+    /**
+     * Keep scanning, returning all barcodes found in a frame as a single batch,
+     * but each distinct barcode only once for the lifetime of the scan
+     * (or once per time-to-live).
+     * Meant for high-throughput scanning; e.g. a stock count.
+     *
+     * @see DecoderResultListener#onMultipleResults(List)
+     * @see BarcodeScanner.Builder#setBulkDuplicateTtl(long)
+     */
+    Bulk(3);
 
     private final int mode;
 
@@ -30,6 +48,10 @@ public enum ScanMode {
      */
     public static ScanMode getMode(final int mode) {
         switch (mode) {
+            case 3:
+                return Bulk;
+            case 2:
+                return Multi;
             case 1:
                 return Continuous;
             case 0:
@@ -0,0 +1,209 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simple, thread-safe, counters and timers collected while scanning.
+ * <p>
+ * Meant to be used to compare the cost of the various options on a given device.
+ *
+ * @see BarcodeScanner#getMetrics()
+ */
+@SuppressWarnings("WeakerAccess")
+public class ScannerMetrics {
+
+    /**
+     * Timer: converting the camera image into a {@link com.google.zxing.LuminanceSource};
+     * i.e. copying, flipping and rotating.
+     */
+    public static final String FRAME_PREPARE = "frame.prepare";
+    /**
+     * Timer: decoding the {@link com.google.zxing.LuminanceSource}.
+     */
+    public static final String FRAME_DECODE = "frame.decode";
+    /**
+     * Timer: running the {@link FrameFilter}s on the camera image.
+     */
+    public static final String FRAME_FILTER = "frame.filter";
+    /**
+     * Counter: frames skipped as the scanner was paused or stopped.
+     *
+     * @see BarcodeScanner#pause()
+     */
+    public static final String FRAME_PAUSED = "frame.paused";
+    /**
+     * Counter: frames skipped as the subscriber did not request any more results.
+     *
+     * @see BarcodeScanner#getResultPublisher(androidx.lifecycle.LifecycleOwner,
+     *         androidx.camera.view.PreviewView)
+     */
+    public static final String FRAME_NO_DEMAND = "frame.noDemand";
+    /**
+     * Counter: frames accepted by all {@link FrameFilter}s.
+     */
+    public static final String FRAME_FILTER_PASSED = "filter.passed";
+    /**
+     * Counter: frames rejected by a {@link FrameFilter}.
+     * In addition, a counter with the simple class name of the filter appended
+     * (e.g. {@code "filter.skipped.PresenceFrameFilter"}) is kept for each filter.
+     */
+    public static final String FRAME_FILTER_SKIPPED = "filter.skipped";
+    /**
+     * Timer: binarizing with {@link com.google.zxing.common.HybridBinarizer};
+     * the count is the number of frames it was used for.
+     */
+    public static final String BINARIZER_HYBRID = "binarizer.hybrid";
+    /**
+     * Timer: binarizing with {@link com.google.zxing.common.GlobalHistogramBinarizer};
+     * the count is the number of frames it was used for.
+     */
+    public static final String BINARIZER_GLOBAL_HISTOGRAM = "binarizer.globalHistogram";
+    /**
+     * Timer: binarizing with the integral image binarizer;
+     * the count is the number of frames it was used for.
+     *
+     * @see BinarizerStrategy#IntegralImage
+     */
+    public static final String BINARIZER_INTEGRAL_IMAGE = "binarizer.integralImage";
+
+    /**
+     * Counter: frames of which only the tracked region was decoded.
+     *
+     * @see TrackingDecoder
+     */
+    public static final String TRACKING_REGION = "tracking.region";
+    /**
+     * Counter: frames which were fully decoded while tracking was enabled.
+     *
+     * @see TrackingDecoder
+     */
+    public static final String TRACKING_FULL_FRAME = "tracking.fullFrame";
+
+    /**
+     * Counter: results and result points handed over by the analysis thread.
+     *
+     * @see BarcodeScanner.Builder#setDeliveryInterval(long)
+     */
+    public static final String DELIVERY_OFFERED = "delivery.offered";
+    /**
+     * Counter: batches delivered on the main thread; i.e. main thread hops.
+     *
+     * @see BarcodeScanner.Builder#setDeliveryInterval(long)
+     */
+    public static final String DELIVERY_BATCHES = "delivery.batches";
+
+    /**
+     * Timer: creating (or taking from the pool) the decoder when the scanner starts.
+     */
+    public static final String STARTUP_CREATE_DECODER = "startup.createDecoder";
+    /**
+     * Timer: decoding the first frame after the scanner starts.
+     * Includes the creation of the readers used for that frame,
+     * and the class loading done on their first use.
+     *
+     * @see LazyMultiFormatReader
+     */
+    public static final String STARTUP_FIRST_DECODE = "startup.firstDecode";
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Increment a counter.
+     *
+     * @param name of the counter
+     */
+    public void increment(@NonNull final String name) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Get the value of a counter.
+     *
+     * @param name of the counter
+     *
+     * @return value
+     */
+    public long getCount(@NonNull final String name) {
+        final LongAdder counter = counters.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * Add a measurement to a timer.
+     *
+     * @param name  of the timer
+     * @param nanos the elapsed time in nanoseconds
+     */
+    public void addTime(@NonNull final String name,
+                        final long nanos) {
+        timers.computeIfAbsent(name, key -> new Timer()).add(nanos);
+    }
+
+    /**
+     * Get the number of measurements of a timer.
+     *
+     * @param name of the timer
+     *
+     * @return count
+     */
+    public long getTimerCount(@NonNull final String name) {
+        final Timer timer = timers.get(name);
+        return timer != null ? timer.count.sum() : 0;
+    }
+
+    /**
+     * Get the average time of a timer.
+     *
+     * @param name of the timer
+     *
+     * @return average time in milliseconds; {@code 0} if there are no measurements
+     */
+    public double getAverageMillis(@NonNull final String name) {
+        final Timer timer = timers.get(name);
+        return timer != null ? timer.getAverageMillis() : 0;
+    }
+
+    /**
+     * Reset all counters and timers.
+     */
+    public void reset() {
+        counters.clear();
+        timers.clear();
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ScannerMetrics{");
+        new TreeMap<>(counters).forEach((name, counter) -> sb
+                .append(name).append('=').append(counter.sum()).append(", "));
+        new TreeMap<>(timers).forEach((name, timer) -> sb
+                .append(name).append('=').append(timer.count.sum())
+                .append('x').append(String.format(Locale.ROOT, "%.2f", timer.getAverageMillis()))
+                .append("ms, "));
+        return sb.append('}').toString();
+    }
+
+    private static final class Timer {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        void add(final long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+        }
+
+        double getAverageMillis() {
+            final long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / (n * 1_000_000d);
+        }
+    }
+}
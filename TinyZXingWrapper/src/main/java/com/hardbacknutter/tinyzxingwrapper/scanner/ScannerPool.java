@@ -0,0 +1,210 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A process-wide pool which keeps the expensive parts of a {@link BarcodeScanner}
+ * alive between scans: the resolved camera provider, the analysis executors
+ * and the decoders (i.e. the zxing readers).
+ * <p>
+ * Opt-in with {@link BarcodeScanner.Builder#setUsePool(boolean)}.
+ * A scanner takes what it needs from the pool, and gives it back when its lifecycle
+ * is destroyed. When nothing was taken from the pool for the idle timeout,
+ * the pool releases everything.
+ * <p>
+ * Decoders are only pooled when no custom {@link DecoderFactory} is used;
+ * they are matched on the hints and the decoder options.
+ * <p>
+ * Note that the camera itself is always bound to the lifecycle of the scanner,
+ * and cannot be kept open between scans.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ScannerPool {
+
+    /** Release everything after the pool was not used for this long. */
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 60_000;
+
+    /** The maximum number of idle decoders kept for each configuration. */
+    private static final int MAX_IDLE_DECODERS = 2;
+
+    private static final ScannerPool INSTANCE = new ScannerPool();
+
+    @NonNull
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    @NonNull
+    private final Runnable evictRunnable = this::clear;
+
+    @GuardedBy("this")
+    @NonNull
+    private final ArrayDeque<ExecutorService> idleExecutors = new ArrayDeque<>();
+    @GuardedBy("this")
+    @NonNull
+    private final Map<String, ArrayDeque<Decoder>> idleDecoders = new HashMap<>();
+    @GuardedBy("this")
+    @Nullable
+    private ListenableFuture<ProcessCameraProvider> cameraProviderFuture;
+    /** The number of executors and decoders currently taken from the pool. */
+    @GuardedBy("this")
+    private int inUse;
+    @GuardedBy("this")
+    private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MS;
+
+    private ScannerPool() {
+    }
+
+    /**
+     * Get the pool.
+     *
+     * @return the process-wide instance
+     */
+    @NonNull
+    public static ScannerPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Set the time after which an unused pool releases everything.
+     * Negative values are ignored.
+     *
+     * @param timeoutMillis in milliseconds; use {@code 0} to release as soon
+     *                      as nothing is in use.
+     */
+    public synchronized void setIdleTimeout(final long timeoutMillis) {
+        if (timeoutMillis >= 0) {
+            idleTimeoutMillis = timeoutMillis;
+        }
+    }
+
+    /**
+     * Resolve the camera provider and create an analysis executor ahead of
+     * the first scan; e.g. when the screen which starts the scanning is shown.
+     * <p>
+     * The idle timeout applies as usual.
+     *
+     * @param context Current context
+     */
+    public void warmUp(@NonNull final Context context) {
+        getCameraProvider(context);
+        releaseExecutor(acquireExecutor());
+    }
+
+    /**
+     * Release everything which is not in use. Anything in use is released
+     * when it is given back.
+     */
+    public void clear() {
+        final List<ExecutorService> executors;
+        synchronized (this) {
+            handler.removeCallbacks(evictRunnable);
+            executors = new ArrayList<>(idleExecutors);
+            idleExecutors.clear();
+            idleDecoders.clear();
+            cameraProviderFuture = null;
+        }
+        executors.forEach(ExecutorService::shutdown);
+    }
+
+    /**
+     * Get the (possibly already resolved) camera provider.
+     *
+     * @param context Current context
+     *
+     * @return future
+     */
+    @NonNull
+    synchronized ListenableFuture<ProcessCameraProvider> getCameraProvider(
+            @NonNull final Context context) {
+        if (cameraProviderFuture == null) {
+            cameraProviderFuture = ProcessCameraProvider.getInstance(
+                    context.getApplicationContext());
+        }
+        return cameraProviderFuture;
+    }
+
+    /**
+     * Take an executor from the pool, or create one.
+     *
+     * @return a single thread executor
+     */
+    @NonNull
+    synchronized ExecutorService acquireExecutor() {
+        onAcquire();
+        final ExecutorService executor = idleExecutors.poll();
+        return executor != null ? executor : Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Give an executor back to the pool.
+     *
+     * @param executor as returned by {@link #acquireExecutor()}
+     */
+    synchronized void releaseExecutor(@NonNull final ExecutorService executor) {
+        idleExecutors.push(executor);
+        onRelease();
+    }
+
+    /**
+     * Take a decoder for the given configuration from the pool, or create one.
+     *
+     * @param key     identifying the configuration of the decoder
+     * @param factory to create a new decoder
+     *
+     * @return decoder
+     */
+    @NonNull
+    synchronized Decoder acquireDecoder(@NonNull final String key,
+                                        @NonNull final DecoderFactory factory) {
+        onAcquire();
+        final ArrayDeque<Decoder> decoders = idleDecoders.get(key);
+        final Decoder decoder = decoders != null ? decoders.poll() : null;
+        return decoder != null ? decoder : factory.createDecoder();
+    }
+
+    /**
+     * Give a decoder back to the pool.
+     *
+     * @param key     as used with {@link #acquireDecoder(String, DecoderFactory)}
+     * @param decoder to give back
+     */
+    synchronized void releaseDecoder(@NonNull final String key,
+                                     @NonNull final Decoder decoder) {
+        final ArrayDeque<Decoder> decoders = idleDecoders.computeIfAbsent(
+                key, k -> new ArrayDeque<>());
+        if (decoders.size() < MAX_IDLE_DECODERS) {
+            decoders.push(decoder);
+        }
+        onRelease();
+    }
+
+    @GuardedBy("this")
+    private void onAcquire() {
+        inUse++;
+        handler.removeCallbacks(evictRunnable);
+    }
+
+    @GuardedBy("this")
+    private void onRelease() {
+        inUse--;
+        if (inUse <= 0) {
+            inUse = 0;
+            handler.postDelayed(evictRunnable, idleTimeoutMillis);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Skips frames showing the same scene as the last decoded frame.
+ * Meant for {@link ScanMode#Continuous}; e.g. a fixed-mount scanner where the same
+ * barcode (or no barcode at all) is in view for long periods.
+ * <p>
+ * Each frame is reduced to a tiny fingerprint: the mean luminance of each cell of
+ * a 16x12 grid, sampled on a strided subsample. A frame is skipped when the mean
+ * absolute difference with the fingerprint of the last decoded frame is below
+ * the threshold.
+ * <p>
+ * If the last decoded frame contained a barcode, unchanged frames are skipped
+ * until the scene changes. If it did not, an unchanged frame is still let through
+ * periodically, as focus or exposure may have improved without changing
+ * the fingerprint.
+ */
+@SuppressWarnings("WeakerAccess")
+public class SceneChangeFrameFilter
+        implements FrameFilter {
+
+    /** The mean absolute luminance difference per cell for a scene to be different. */
+    public static final float DEFAULT_THRESHOLD = 4f;
+    /** Retry an unchanged scene without a barcode after this many skipped frames. */
+    public static final int DEFAULT_RETRY_INTERVAL = 15;
+
+    private static final int GRID_X = 16;
+    private static final int GRID_Y = 12;
+    private static final int CELLS = GRID_X * GRID_Y;
+    /** The number of samples taken per cell, in each direction. */
+    private static final int SAMPLES = 4;
+
+    private final float threshold;
+    private final int retryInterval;
+
+    /** The fingerprint of the current frame. */
+    @NonNull
+    private int[] current = new int[CELLS];
+    /** The fingerprint of the frame which was accepted last. */
+    @NonNull
+    private int[] accepted = new int[CELLS];
+    /** The fingerprint of the frame which was decoded last. */
+    @NonNull
+    private final int[] reference = new int[CELLS];
+    private boolean hasReference;
+    private boolean referenceFound;
+    private int skipped;
+
+    /**
+     * Constructor using default settings.
+     */
+    public SceneChangeFrameFilter() {
+        this(DEFAULT_THRESHOLD, DEFAULT_RETRY_INTERVAL);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param threshold     the mean absolute luminance difference {@code [0..255]}
+     *                      per cell for a scene to be different
+     * @param retryInterval let an unchanged scene without a barcode through after
+     *                      this many skipped frames; use {@code 0} to never retry
+     */
+    public SceneChangeFrameFilter(final float threshold,
+                                  final int retryInterval) {
+        this.threshold = threshold;
+        this.retryInterval = retryInterval;
+    }
+
+    @Override
+    public boolean accept(@NonNull final ByteBuffer yData,
+                          final int width,
+                          final int height,
+                          final int rowStride,
+                          final int pixelStride) {
+        final int cellWidth = width / GRID_X;
+        final int cellHeight = height / GRID_Y;
+        if (cellWidth == 0 || cellHeight == 0) {
+            return true;
+        }
+
+        final int xStep = Math.max(1, cellWidth / SAMPLES);
+        final int yStep = Math.max(1, cellHeight / SAMPLES);
+        int cell = 0;
+        for (int cy = 0; cy < GRID_Y; cy++) {
+            for (int cx = 0; cx < GRID_X; cx++) {
+                int sum = 0;
+                int count = 0;
+                for (int y = cy * cellHeight + yStep / 2; y < (cy + 1) * cellHeight; y += yStep) {
+                    final int rowStart = y * rowStride;
+                    for (int x = cx * cellWidth + xStep / 2;
+                         x < (cx + 1) * cellWidth;
+                         x += xStep) {
+                        sum += yData.get(rowStart + x * pixelStride) & 0xFF;
+                        count++;
+                    }
+                }
+                current[cell++] = sum / count;
+            }
+        }
+
+        if (hasReference && getDifference(current, reference) < threshold) {
+            skipped++;
+            if (referenceFound || retryInterval <= 0 || skipped < retryInterval) {
+                return false;
+            }
+        }
+
+        skipped = 0;
+        // Keep this fingerprint until we know the outcome of the decode
+        final int[] tmp = accepted;
+        accepted = current;
+        current = tmp;
+        return true;
+    }
+
+    @Override
+    public void onDecoded(final boolean found) {
+        System.arraycopy(accepted, 0, reference, 0, CELLS);
+        hasReference = true;
+        referenceFound = found;
+    }
+
+    private static float getDifference(@NonNull final int[] a,
+                                       @NonNull final int[] b) {
+        int sum = 0;
+        for (int i = 0; i < CELLS; i++) {
+            sum += Math.abs(a[i] - b[i]);
+        }
+        return (float) sum / CELLS;
+    }
+}
@@ -0,0 +1,128 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Skips frames which are blurred; e.g. while the camera is refocusing
+ * or the hand of the user is moving.
+ * <p>
+ * The sharpness is estimated as the variance of the Laplacian over a strided
+ * subsample of the center of the frame (where the user aims the barcode).
+ * Blurred frames have weak second derivatives and therefore a low variance.
+ * <p>
+ * The threshold is adaptive: a frame is rejected when its sharpness is below
+ * a fraction of the sharpest recent frame. The reference decays with each frame,
+ * so when the scene itself changes (e.g. less texture, darker), the threshold
+ * follows within a few frames. Hence, this filter never blocks all frames for long.
+ */
+@SuppressWarnings("WeakerAccess")
+public class SharpnessFrameFilter
+        implements FrameFilter {
+
+    /** Sample every n-th pixel, horizontally and vertically. */
+    public static final int DEFAULT_STEP = 2;
+    /** A frame must reach this fraction of the recent peak sharpness. */
+    public static final float DEFAULT_MIN_RATIO = 0.5f;
+    /** The recent peak sharpness is multiplied by this factor on each frame. */
+    public static final float DEFAULT_DECAY = 0.95f;
+
+    private final int step;
+    private final float minRatio;
+    private final float decay;
+
+    /** Only accessed from the analysis thread. */
+    private double peak;
+
+    /**
+     * Constructor using default settings.
+     */
+    public SharpnessFrameFilter() {
+        this(DEFAULT_STEP, DEFAULT_MIN_RATIO, DEFAULT_DECAY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param step     sample every n-th pixel; must be {@code >= 1}
+     * @param minRatio the fraction {@code [0..1]} of the recent peak sharpness
+     *                 a frame must reach to be accepted
+     * @param decay    the factor {@code [0..1[} the peak is multiplied with on each frame;
+     *                 lower values adapt faster
+     */
+    public SharpnessFrameFilter(final int step,
+                                final float minRatio,
+                                final float decay) {
+        if (step < 1) {
+            throw new IllegalArgumentException("step must be >= 1");
+        }
+        this.step = step;
+        this.minRatio = minRatio;
+        this.decay = decay;
+    }
+
+    @Override
+    public boolean accept(@NonNull final ByteBuffer yData,
+                          final int width,
+                          final int height,
+                          final int rowStride,
+                          final int pixelStride) {
+        final double sharpness = getSharpness(yData, width, height, rowStride, pixelStride);
+
+        peak *= decay;
+        final boolean accept = sharpness >= minRatio * peak;
+        if (sharpness > peak) {
+            peak = sharpness;
+        }
+        return accept;
+    }
+
+    /**
+     * Calculate the variance of the Laplacian over the center half of the frame.
+     *
+     * @param yData       the Y (luminance) plane of the frame
+     * @param width       of the frame
+     * @param height      of the frame
+     * @param rowStride   the distance between the start of two consecutive rows
+     * @param pixelStride the distance between two consecutive pixels in a row
+     *
+     * @return variance; {@code 0} for a uniform frame
+     */
+    double getSharpness(@NonNull final ByteBuffer yData,
+                        final int width,
+                        final int height,
+                        final int rowStride,
+                        final int pixelStride) {
+        final int xStep = step * pixelStride;
+        final int yStep = step * rowStride;
+
+        long sum = 0;
+        long sumOfSquares = 0;
+        int samples = 0;
+        for (int y = height / 4; y < height * 3 / 4 - step; y += step) {
+            if (y < step) {
+                continue;
+            }
+            int offset = y * rowStride + (width / 4) * pixelStride;
+            for (int x = width / 4; x < width * 3 / 4 - step; x += step) {
+                if (x >= step) {
+                    final int laplacian = 4 * (yData.get(offset) & 0xFF)
+                                          - (yData.get(offset - xStep) & 0xFF)
+                                          - (yData.get(offset + xStep) & 0xFF)
+                                          - (yData.get(offset - yStep) & 0xFF)
+                                          - (yData.get(offset + yStep) & 0xFF);
+                    sum += laplacian;
+                    sumOfSquares += laplacian * laplacian;
+                    samples++;
+                }
+                offset += xStep;
+            }
+        }
+        if (samples == 0) {
+            return 0;
+        }
+        final double mean = (double) sum / samples;
+        return (double) sumOfSquares / samples - mean * mean;
+    }
+}
@@ -41,12 +41,34 @@ public class SimpleLuminanceSource
                                  final int height,
                                  final int rowStride,
                                  final int pixelStride) {
+        this(yuvData, width, height, rowStride, pixelStride, null);
+    }
+
+    /**
+     * Constructor which reuses the given buffers if the padding needs to be stripped.
+     *
+     * @param yuvData     The image data. Padding (see rowStride/pixelStride) and u/v data
+     *                    is allowed but will be stripped.
+     * @param width       Width of the image
+     * @param height      Height of the image
+     * @param rowStride   The distance between the start of two consecutive rows
+     *                    of pixels in the image.
+     * @param pixelStride The distance between two consecutive pixel values in a row of pixels.
+     * @param buffers     to reuse; or {@code null} to allocate
+     */
+    SimpleLuminanceSource(@NonNull final byte[] yuvData,
+                          final int width,
+                          final int height,
+                          final int rowStride,
+                          final int pixelStride,
+                          @Nullable final FrameBuffers buffers) {
         super(width, height);
         if (rowStride == width && pixelStride == 1) {
             data = yuvData;
         } else {
             // normalise and strip any padding and the u/v data
-            data = new byte[width * height];
+            data = buffers != null ? buffers.getWork(width * height, yuvData)
+                                   : new byte[width * height];
             int dst = 0;
             for (int y = 0; y < height; y++) {
                 final int rowStart = y * rowStride;
@@ -68,6 +90,20 @@ public class SimpleLuminanceSource
         }
     }
 
+    /**
+     * Get the storage for the output of a conversion.
+     *
+     * @param len     in bytes
+     * @param buffers to reuse; or {@code null} to allocate
+     *
+     * @return storage which is not the data of this source
+     */
+    @NonNull
+    private byte[] allocate(final int len,
+                            @Nullable final FrameBuffers buffers) {
+        return buffers != null ? buffers.getWork(len, data) : new byte[len];
+    }
+
     @Override
     @NonNull
     public byte[] getRow(final int y,
@@ -90,6 +126,62 @@ public class SimpleLuminanceSource
         return data;
     }
 
+    @Override
+    public boolean isCropSupported() {
+        return true;
+    }
+
+    /**
+     * Copy a rectangular region of the data.
+     *
+     * @param left   The left coordinate, which must be in [0,getWidth())
+     * @param top    The top coordinate, which must be in [0,getHeight())
+     * @param width  The width of the rectangle to crop.
+     * @param height The height of the rectangle to crop.
+     *
+     * @return the cropped data
+     */
+    @Override
+    @NonNull
+    public SimpleLuminanceSource crop(final int left,
+                                      final int top,
+                                      final int width,
+                                      final int height) {
+        return crop(left, top, width, height, null);
+    }
+
+    /**
+     * Copy a rectangular region of the data.
+     *
+     * @param left    The left coordinate, which must be in [0,getWidth())
+     * @param top     The top coordinate, which must be in [0,getHeight())
+     * @param width   The width of the rectangle to crop.
+     * @param height  The height of the rectangle to crop.
+     * @param buffers to reuse; or {@code null} to allocate
+     *
+     * @return the cropped data
+     */
+    @NonNull
+    SimpleLuminanceSource crop(final int left,
+                               final int top,
+                               final int width,
+                               final int height,
+                               @Nullable final FrameBuffers buffers) {
+        if (left < 0 || top < 0 || width <= 0 || height <= 0
+            || left + width > getWidth() || top + height > getHeight()) {
+            throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+        }
+
+        final int srcWidth = getWidth();
+        final byte[] yData = allocate(width * height, buffers);
+        for (int y = 0, src = top * srcWidth + left, dst = 0;
+             y < height;
+             y++, src += srcWidth, dst += width) {
+            System.arraycopy(data, src, yData, dst, width);
+        }
+        return new SimpleLuminanceSource(yData, width, height);
+    }
+
     /**
      * Flip the data around the vertical axis.
      *
@@ -99,12 +191,26 @@ public class SimpleLuminanceSource
      */
     @NonNull
     public SimpleLuminanceSource flipHorizontal(final boolean flip) {
+        return flipHorizontal(flip, null);
+    }
+
+    /**
+     * Flip the data around the vertical axis.
+     *
+     * @param flip    {@code true} to flip; {@code false} will return the original
+     * @param buffers to reuse; or {@code null} to allocate
+     *
+     * @return the flipped data
+     */
+    @NonNull
+    SimpleLuminanceSource flipHorizontal(final boolean flip,
+                                         @Nullable final FrameBuffers buffers) {
         if (flip) {
             final int width = getWidth();
             final int height = getHeight();
 
             final int len = width * height;
-            final byte[] yData = new byte[len];
+            final byte[] yData = allocate(len, buffers);
 
             for (int y = 0, rowStart = 0;
                  y < height;
@@ -135,12 +241,18 @@ public class SimpleLuminanceSource
      */
     @NonNull
     public SimpleLuminanceSource flipVertical(final boolean flip) {
+        return flipVertical(flip, null);
+    }
+
+    @NonNull
+    private SimpleLuminanceSource flipVertical(final boolean flip,
+                                               @Nullable final FrameBuffers buffers) {
         if (flip) {
             final int width = getWidth();
             final int height = getHeight();
 
             final int len = width * height;
-            final byte[] yData = new byte[len];
+            final byte[] yData = allocate(len, buffers);
 
             int dst = len - 1;
             for (int src = 0; src < len; src++) {
@@ -164,13 +276,28 @@ public class SimpleLuminanceSource
      */
     @NonNull
     public SimpleLuminanceSource rotate(final int degrees) {
+        return rotate(degrees, null);
+    }
+
+    /**
+     * Convenience method; accepts {@code 90, 180, 270} angles.
+     * Any other angle and it returns the original. No error is thrown.
+     *
+     * @param degrees to rotate
+     * @param buffers to reuse; or {@code null} to allocate
+     *
+     * @return the rotated data
+     */
+    @NonNull
+    SimpleLuminanceSource rotate(final int degrees,
+                                 @Nullable final FrameBuffers buffers) {
         switch (degrees) {
             case 90:
-                return rotateClockwise();
+                return rotateClockwise(buffers);
             case 180:
-                return flipVertical(true);
+                return flipVertical(true, buffers);
             case 270:
-                return rotateCounterClockwise();
+                return rotateCounterClockwise(buffers);
             default:
                 return this;
         }
@@ -179,15 +306,17 @@ public class SimpleLuminanceSource
     /**
      * Rotate an image by 90 degrees CW.
      *
+     * @param buffers to reuse; or {@code null} to allocate
+     *
      * @return the rotated data
      */
     @NonNull
-    private SimpleLuminanceSource rotateClockwise() {
+    private SimpleLuminanceSource rotateClockwise(@Nullable final FrameBuffers buffers) {
         final int width = getWidth();
         final int height = getHeight();
 
         final int len = width * height;
-        final byte[] yData = new byte[len];
+        final byte[] yData = allocate(len, buffers);
 
         int dst = 0;
         for (int x = 0; x < width; x++) {
@@ -211,11 +340,16 @@ public class SimpleLuminanceSource
     @Override
     @NonNull
     public SimpleLuminanceSource rotateCounterClockwise() {
+        return rotateCounterClockwise(null);
+    }
+
+    @NonNull
+    private SimpleLuminanceSource rotateCounterClockwise(@Nullable final FrameBuffers buffers) {
         final int width = getWidth();
         final int height = getHeight();
 
         final int len = width * height;
-        final byte[] yData = new byte[len];
+        final byte[] yData = allocate(len, buffers);
 
         int dst = len - 1;
         for (int x = 0; x < width; x++) {
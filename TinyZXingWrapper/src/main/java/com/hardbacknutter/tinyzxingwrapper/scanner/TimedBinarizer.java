@@ -0,0 +1,67 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+/**
+ * Wraps a {@link Binarizer} and accumulates the time spent binarizing.
+ */
+final class TimedBinarizer
+        extends Binarizer {
+
+    @NonNull
+    private final Binarizer binarizer;
+    private long nanos;
+
+    TimedBinarizer(@NonNull final Binarizer binarizer) {
+        super(binarizer.getLuminanceSource());
+        this.binarizer = binarizer;
+    }
+
+    /**
+     * Get the total time spent in this binarizer.
+     *
+     * @return nanoseconds
+     */
+    long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    @NonNull
+    public BitArray getBlackRow(final int y,
+                                @Nullable final BitArray row)
+            throws NotFoundException {
+        final long start = System.nanoTime();
+        try {
+            return binarizer.getBlackRow(y, row);
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    @NonNull
+    public BitMatrix getBlackMatrix()
+            throws NotFoundException {
+        final long start = System.nanoTime();
+        try {
+            return binarizer.getBlackMatrix();
+        } finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    @NonNull
+    public Binarizer createBinarizer(@NonNull final LuminanceSource source) {
+        // Used for rotated/cropped sources; not timed.
+        return binarizer.createBinarizer(source);
+    }
+}
@@ -0,0 +1,324 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link Decoder} which tracks the location of the barcode, and decodes
+ * a padded region around the predicted location instead of the full frame.
+ * <p>
+ * The region is updated from the points of each result, and from the possible
+ * result points (e.g. finder patterns) when decoding fails.
+ * The movement between two consecutive results is used to predict the next location;
+ * e.g. for barcodes passing on a conveyor belt.
+ * <p>
+ * The full frame is decoded when no region is known, when the track is lost
+ * (i.e. decoding the region failed a number of times in a row), and periodically
+ * so that new barcodes entering the frame are not missed.
+ * <p>
+ * Requires a {@link LuminanceSource} which supports cropping;
+ * otherwise the full frame is always decoded.
+ */
+@SuppressWarnings("WeakerAccess")
+public class TrackingDecoder
+        implements Decoder {
+
+    /** Decode the full frame at least every n frames. */
+    public static final int DEFAULT_FULL_FRAME_INTERVAL = 5;
+    /** Consider the track lost after n failed region decodes in a row. */
+    public static final int DEFAULT_MAX_MISSES = 3;
+
+    /** Padding around the points, as a fraction of their largest extent. */
+    private static final float PADDING = 0.5f;
+    /** Minimal padding, as a fraction of the smallest frame side. */
+    private static final float MIN_PADDING = 0.1f;
+    /** The minimal number of possible result points to start tracking without a result. */
+    private static final int MIN_POINTS_TO_START = 3;
+    /** Decode the full frame instead if the region would cover more than this. */
+    private static final float MAX_REGION_AREA = 0.6f;
+    /**
+     * The crop sides are rounded up to a multiple of this; a crop which changes size
+     * on every frame would need new binarizer storage on every frame.
+     */
+    static final int CROP_GRANULARITY = 64;
+
+    @NonNull
+    private final Decoder decoder;
+    private final int fullFrameInterval;
+    private final int maxMisses;
+
+    /** The tracked region: the bounding box of the last known points; or {@code null}. */
+    @Nullable
+    private float[] region;
+    /** The predicted movement of the region per frame. */
+    private float dx;
+    private float dy;
+    private int misses;
+    private int frameCount;
+    @Nullable
+    private ScannerMetrics metrics;
+
+    /** Reused for the crops; a crop is done with before the next frame is decoded. */
+    @NonNull
+    private final FrameBuffers cropBuffers = new FrameBuffers();
+
+    /** The offset of the last decoded crop in the full frame. */
+    private int lastLeft;
+    private int lastTop;
+
+    /**
+     * Constructor using default settings.
+     *
+     * @param decoder the actual decoder
+     */
+    public TrackingDecoder(@NonNull final Decoder decoder) {
+        this(decoder, DEFAULT_FULL_FRAME_INTERVAL, DEFAULT_MAX_MISSES);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param decoder           the actual decoder
+     * @param fullFrameInterval decode the full frame at least every n frames;
+     *                          use {@code 0} to only do so when the track is lost.
+     * @param maxMisses         consider the track lost after n failed region decodes in a row
+     */
+    public TrackingDecoder(@NonNull final Decoder decoder,
+                           final int fullFrameInterval,
+                           final int maxMisses) {
+        this.decoder = decoder;
+        this.fullFrameInterval = fullFrameInterval;
+        this.maxMisses = maxMisses;
+    }
+
+    @Override
+    @Nullable
+    public Result decode(@NonNull final LuminanceSource source) {
+        frameCount++;
+
+        final boolean forceFullFrame = fullFrameInterval > 0
+                                       && frameCount % fullFrameInterval == 0;
+        if (region != null && !forceFullFrame && source.isCropSupported()) {
+            final int width = source.getWidth();
+            final int height = source.getHeight();
+
+            final float pad = Math.max(PADDING * Math.max(region[2] - region[0],
+                                                          region[3] - region[1]),
+                                       MIN_PADDING * Math.min(width, height));
+            final int left = clamp(region[0] + dx - pad, width);
+            final int top = clamp(region[1] + dy - pad, height);
+            final int right = clamp(region[2] + dx + pad, width);
+            final int bottom = clamp(region[3] + dy + pad, height);
+
+            if (right > left && bottom > top) {
+                // Grow the crop around its center to the quantized size,
+                // and shift it back inside the frame where needed.
+                final int cropWidth = quantize(right - left, width);
+                final int cropHeight = quantize(bottom - top, height);
+                final int cropLeft = Math.max(0, Math.min(width - cropWidth,
+                                                          left - (cropWidth - right + left) / 2));
+                final int cropTop = Math.max(0, Math.min(height - cropHeight,
+                                                         top - (cropHeight - bottom + top) / 2));
+
+                if ((float) cropWidth * cropHeight <= MAX_REGION_AREA * width * height) {
+                    lastLeft = cropLeft;
+                    lastTop = cropTop;
+                    if (metrics != null) {
+                        metrics.increment(ScannerMetrics.TRACKING_REGION);
+                    }
+                    final Result result = decoder.decode(
+                            crop(source, cropLeft, cropTop, cropWidth, cropHeight));
+                    if (result != null) {
+                        final Result translated = translate(result, cropLeft, cropTop);
+                        track(translated.getResultPoints(), true);
+                        return translated;
+                    }
+
+                    misses++;
+                    if (misses < maxMisses) {
+                        // Follow the finder patterns if there are any, but keep counting misses
+                        track(getPossibleResultPoints().toArray(new ResultPoint[0]), false);
+                        return null;
+                    }
+                    // The track is lost
+                    region = null;
+                }
+            }
+        }
+
+        lastLeft = 0;
+        lastTop = 0;
+        if (metrics != null) {
+            metrics.increment(ScannerMetrics.TRACKING_FULL_FRAME);
+        }
+        final Result result = decoder.decode(source);
+        if (result != null) {
+            track(result.getResultPoints(), true);
+        } else if (region == null) {
+            // Only start a track on a failed decode when there is some structure;
+            // e.g. the three finder patterns of a QR-code.
+            final List<ResultPoint> points = decoder.getPossibleResultPoints();
+            if (points.size() >= MIN_POINTS_TO_START) {
+                track(points.toArray(new ResultPoint[0]), false);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Multiple barcodes cannot be tracked as a single region; the full frame is always used.
+     */
+    @Override
+    @NonNull
+    public List<Result> decodeMultiple(@NonNull final LuminanceSource source) {
+        lastLeft = 0;
+        lastTop = 0;
+        return decoder.decodeMultiple(source);
+    }
+
+    private static int clamp(final float value,
+                             final int max) {
+        return (int) Math.max(0, Math.min(max, value));
+    }
+
+    /**
+     * Round a crop side up to a multiple of {@link #CROP_GRANULARITY}.
+     *
+     * @param size of the crop side
+     * @param max  the frame side
+     *
+     * @return the quantized size, at most the frame side
+     */
+    static int quantize(final int size,
+                        final int max) {
+        final int rounded = (size + CROP_GRANULARITY - 1) / CROP_GRANULARITY * CROP_GRANULARITY;
+        return Math.min(max, rounded);
+    }
+
+    @NonNull
+    private LuminanceSource crop(@NonNull final LuminanceSource source,
+                                 final int left,
+                                 final int top,
+                                 final int width,
+                                 final int height) {
+        if (source instanceof SimpleLuminanceSource) {
+            return ((SimpleLuminanceSource) source).crop(left, top, width, height, cropBuffers);
+        }
+        return source.crop(left, top, width, height);
+    }
+
+    /**
+     * Update the tracked region.
+     *
+     * @param points in full frame coordinates; can contain {@code null} elements
+     * @param found  {@code true} if the points are from a result
+     */
+    private void track(@Nullable final ResultPoint[] points,
+                       final boolean found) {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        int count = 0;
+        if (points != null) {
+            for (final ResultPoint point : points) {
+                if (point != null) {
+                    minX = Math.min(minX, point.getX());
+                    minY = Math.min(minY, point.getY());
+                    maxX = Math.max(maxX, point.getX());
+                    maxY = Math.max(maxY, point.getY());
+                    count++;
+                }
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+
+        if (found) {
+            if (region != null && misses == 0) {
+                // Consecutive results; predict the same movement for the next frame.
+                dx = (minX + maxX - region[0] - region[2]) / 2;
+                dy = (minY + maxY - region[1] - region[3]) / 2;
+            } else {
+                dx = 0;
+                dy = 0;
+            }
+            misses = 0;
+        }
+        region = new float[]{minX, minY, maxX, maxY};
+    }
+
+    @Override
+    @NonNull
+    public List<ResultPoint> getPossibleResultPoints() {
+        final List<ResultPoint> points = decoder.getPossibleResultPoints();
+        if (lastLeft == 0 && lastTop == 0) {
+            return points;
+        }
+        return points.stream()
+                     .map(point -> translate(point, lastLeft, lastTop))
+                     .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public void setMetrics(@NonNull final ScannerMetrics metrics) {
+        this.metrics = metrics;
+        decoder.setMetrics(metrics);
+    }
+
+    @Override
+    public void foundPossibleResultPoint(@NonNull final ResultPoint point) {
+        decoder.foundPossibleResultPoint(point);
+    }
+
+    @NonNull
+    private static ResultPoint translate(@NonNull final ResultPoint point,
+                                         final int left,
+                                         final int top) {
+        return new ResultPoint(point.getX() + left, point.getY() + top);
+    }
+
+    /**
+     * Map a result decoded from a crop back to full frame coordinates.
+     *
+     * @param result to map
+     * @param left   of the crop
+     * @param top    of the crop
+     *
+     * @return a new Result
+     */
+    @NonNull
+    private static Result translate(@NonNull final Result result,
+                                    final int left,
+                                    final int top) {
+        final ResultPoint[] points = result.getResultPoints();
+        final ResultPoint[] translated;
+        if (points == null) {
+            translated = null;
+        } else {
+            translated = new ResultPoint[points.length];
+            for (int i = 0; i < points.length; i++) {
+                // points can contain null elements
+                translated[i] = points[i] == null ? null : translate(points[i], left, top);
+            }
+        }
+
+        final Result translatedResult = new Result(result.getText(),
+                                                   result.getRawBytes(),
+                                                   result.getNumBits(),
+                                                   translated,
+                                                   result.getBarcodeFormat(),
+                                                   result.getTimestamp());
+        translatedResult.putAllMetadata(result.getResultMetadata());
+        return translatedResult;
+    }
+}
@@ -0,0 +1,80 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * A transposed (x and y swapped) view on another {@link LuminanceSource}.
+ * <p>
+ * Rows of this source are the columns of the original, read on demand
+ * by {@link #getRow(int, byte[])} straight from the original data.
+ * This makes it cheap for 1D readers, which only ever request a handful of rows.
+ * Only {@link #getMatrix()} needs (and caches) a full transposed copy.
+ * <p>
+ * Note that a transpose is a 90 degree rotation plus a mirror; 1D readers
+ * try each row in both directions, so the mirror is irrelevant for them.
+ */
+@SuppressWarnings("WeakerAccess")
+public class TransposedLuminanceSource
+        extends LuminanceSource {
+
+    /** The original data; no padding. */
+    @NonNull
+    private final byte[] data;
+    /** The width of the original data. */
+    private final int dataWidth;
+
+    @Nullable
+    private byte[] matrix;
+
+    /**
+     * Constructor.
+     *
+     * @param source to transpose
+     */
+    public TransposedLuminanceSource(@NonNull final LuminanceSource source) {
+        //noinspection SuspiciousNameCombination
+        super(source.getHeight(), source.getWidth());
+        this.data = source.getMatrix();
+        this.dataWidth = source.getWidth();
+    }
+
+    @Override
+    @NonNull
+    public byte[] getRow(final int y,
+                         @Nullable byte[] row) {
+        if (y < 0 || y >= getHeight()) {
+            throw new IllegalArgumentException("Requested row is outside the image: " + y);
+        }
+
+        final int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
+        }
+        // row y of this source is column y of the original
+        for (int x = 0, src = y; x < width; x++, src += dataWidth) {
+            row[x] = data[src];
+        }
+        return row;
+    }
+
+    @Override
+    @NonNull
+    public byte[] getMatrix() {
+        if (matrix == null) {
+            final int width = getWidth();
+            final int height = getHeight();
+            final byte[] transposed = new byte[width * height];
+            int dst = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0, src = y; x < width; x++, src += dataWidth) {
+                    transposed[dst++] = data[src];
+                }
+            }
+            matrix = transposed;
+        }
+        return matrix;
+    }
+}
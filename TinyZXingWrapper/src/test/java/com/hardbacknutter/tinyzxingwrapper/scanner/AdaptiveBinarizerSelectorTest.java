@@ -0,0 +1,115 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.LuminanceSource;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveBinarizerSelectorTest {
+
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+
+    /** Structure everywhere, with the same local threshold. */
+    private static final LuminanceSource EVEN = TestFrames.source(
+            TestFrames.noise(WIDTH, HEIGHT, 1), WIDTH, HEIGHT);
+    /** A dark left half, and a bright right half. */
+    private static final LuminanceSource UNEVEN = TestFrames.source(
+            createUnevenFrame(), WIDTH, HEIGHT);
+
+    @NonNull
+    private static byte[] createUnevenFrame() {
+        final byte[] data = new byte[WIDTH * HEIGHT];
+        final Random random = new Random(2);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                final int base = x < WIDTH / 2 ? 0 : 190;
+                data[y * WIDTH + x] = (byte) (base + random.nextInt(64));
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Make the global binarizer fail while the hybrid one succeeds on the same barcode.
+     */
+    private static void lockOutGlobal(@NonNull final AdaptiveBinarizerSelector selector) {
+        for (int i = 0; i < 50; i++) {
+            selector.onDecoded(BinarizerStrategy.Hybrid, true);
+            selector.onDecoded(BinarizerStrategy.GlobalHistogram, false);
+        }
+    }
+
+    @Test
+    void selectsOnTheLighting() {
+        final AdaptiveBinarizerSelector selector = new AdaptiveBinarizerSelector();
+        assertEquals(BinarizerStrategy.GlobalHistogram, selector.select(EVEN));
+        assertEquals(BinarizerStrategy.Hybrid, selector.select(UNEVEN));
+    }
+
+    @Test
+    void forcesHybridWhenGlobalDoesBadly() {
+        final AdaptiveBinarizerSelector selector = new AdaptiveBinarizerSelector();
+        lockOutGlobal(selector);
+
+        int global = 0;
+        for (int i = 0; i < AdaptiveBinarizerSelector.EXPLORE_INTERVAL * 4; i++) {
+            if (selector.select(EVEN) == BinarizerStrategy.GlobalHistogram) {
+                global++;
+            }
+        }
+        // Only the exploration frames
+        assertEquals(4, global);
+    }
+
+    @Test
+    void recoversThroughExploration() {
+        final AdaptiveBinarizerSelector selector = new AdaptiveBinarizerSelector();
+        lockOutGlobal(selector);
+
+        // The lighting changed; the global binarizer now succeeds whenever it is tried
+        for (int i = 0; i < AdaptiveBinarizerSelector.EXPLORE_INTERVAL * 25; i++) {
+            selector.onDecoded(selector.select(EVEN), true);
+        }
+
+        // Selected on the lighting again
+        for (int i = 0; i < AdaptiveBinarizerSelector.EXPLORE_INTERVAL; i++) {
+            final BinarizerStrategy strategy = selector.select(EVEN);
+            assertEquals(BinarizerStrategy.GlobalHistogram, strategy);
+            selector.onDecoded(strategy, true);
+        }
+    }
+
+    @Test
+    void failuresBetweenResultsCount() {
+        final AdaptiveBinarizerSelector selector = new AdaptiveBinarizerSelector();
+        for (int i = 0; i < 20; i++) {
+            selector.onDecoded(BinarizerStrategy.Hybrid, true);
+            selector.onDecoded(BinarizerStrategy.GlobalHistogram, false);
+            selector.onDecoded(BinarizerStrategy.GlobalHistogram, false);
+        }
+        assertEquals(BinarizerStrategy.Hybrid, selector.select(EVEN));
+    }
+
+    @Test
+    void failuresWithoutABarcodeInViewDoNotCount() {
+        final AdaptiveBinarizerSelector selector = new AdaptiveBinarizerSelector();
+        selector.onDecoded(BinarizerStrategy.Hybrid, true);
+        selector.onDecoded(BinarizerStrategy.GlobalHistogram, true);
+
+        // An empty scene: a long run of failures with the global binarizer only
+        for (int i = 0; i < 1000; i++) {
+            selector.onDecoded(BinarizerStrategy.GlobalHistogram, false);
+        }
+
+        // Counting these would have forced the hybrid binarizer
+        for (int i = 0; i < AdaptiveBinarizerSelector.EXPLORE_INTERVAL; i++) {
+            assertEquals(BinarizerStrategy.GlobalHistogram, selector.select(EVEN));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.Result;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.oned.MultiFormatOneDReader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveMultiFormatReaderTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    private static final Map<DecodeHintType, Object> HINTS =
+            new EnumMap<>(DecodeHintType.class);
+
+    @NonNull
+    private static BinaryBitmap bitmap(@NonNull final BarcodeFormat format) {
+        return new BinaryBitmap(new GlobalHistogramBinarizer(TestFrames.source(
+                TestFrames.barcode(WIDTH, HEIGHT, format, "12345678"), WIDTH, HEIGHT)));
+    }
+
+    @Test
+    void defaultOrder() {
+        final AdaptiveMultiFormatReader reader = new AdaptiveMultiFormatReader(
+                EnumSet.noneOf(BarcodeFormat.class), HINTS);
+        assertEquals(Arrays.asList(ReaderType.values()), reader.getOrder());
+    }
+
+    @Test
+    void hitMovesToTheFront()
+            throws Exception {
+        final AdaptiveMultiFormatReader reader = new AdaptiveMultiFormatReader(
+                EnumSet.noneOf(BarcodeFormat.class), HINTS);
+
+        assertEquals(BarcodeFormat.QR_CODE, reader.decode(bitmap(BarcodeFormat.QR_CODE))
+                                                  .getBarcodeFormat());
+        final List<ReaderType> order = reader.getOrder();
+        assertEquals(ReaderType.QrCode, order.get(0));
+        // The 1D readers stay together, in their default order
+        assertEquals(ReaderType.UpcEan, order.get(1));
+        assertEquals(ReaderType.RssExpanded, order.get(8));
+    }
+
+    @Test
+    void orderWithinTheOneDGroup()
+            throws Exception {
+        final AdaptiveMultiFormatReader reader = new AdaptiveMultiFormatReader(
+                EnumSet.noneOf(BarcodeFormat.class), HINTS);
+
+        reader.decode(bitmap(BarcodeFormat.QR_CODE));
+        reader.decode(bitmap(BarcodeFormat.QR_CODE));
+        assertEquals(BarcodeFormat.CODE_128, reader.decode(bitmap(BarcodeFormat.CODE_128))
+                                                   .getBarcodeFormat());
+
+        // QR has the most hits, Code128 leads the 1D group
+        final List<ReaderType> order = reader.getOrder();
+        assertEquals(ReaderType.QrCode, order.get(0));
+        assertEquals(ReaderType.Code128, order.get(1));
+        assertEquals(ReaderType.UpcEan, order.get(2));
+    }
+
+    @Test
+    void hitsDecay()
+            throws Exception {
+        // A half-life of 1ms; older hits are practically forgotten after a short sleep
+        final AdaptiveMultiFormatReader reader = new AdaptiveMultiFormatReader(
+                EnumSet.of(BarcodeFormat.QR_CODE, BarcodeFormat.CODE_128), HINTS, 1);
+
+        for (int i = 0; i < 5; i++) {
+            reader.decode(bitmap(BarcodeFormat.QR_CODE));
+        }
+        assertEquals(ReaderType.QrCode, reader.getOrder().get(0));
+
+        Thread.sleep(50);
+        reader.decode(bitmap(BarcodeFormat.CODE_128));
+        assertEquals(ReaderType.Code128, reader.getOrder().get(0));
+    }
+
+    @Test
+    void notFound() {
+        final AdaptiveMultiFormatReader reader = new AdaptiveMultiFormatReader(
+                EnumSet.noneOf(BarcodeFormat.class), HINTS);
+        assertThrows(NotFoundException.class, () -> reader.decode(new BinaryBitmap(
+                new GlobalHistogramBinarizer(TestFrames.source(
+                        TestFrames.noise(WIDTH, HEIGHT, 1), WIDTH, HEIGHT)))));
+        assertEquals(Arrays.asList(ReaderType.values()), reader.getOrder());
+    }
+
+    /**
+     * A frame without a barcode must not cost more row scans than zxing's own
+     * {@link MultiFormatOneDReader}.
+     */
+    @Test
+    void oneDReadersShareTheRowScan() {
+        final Set<BarcodeFormat> formats = EnumSet.of(BarcodeFormat.EAN_13,
+                                                      BarcodeFormat.CODE_39,
+                                                      BarcodeFormat.CODE_128,
+                                                      BarcodeFormat.ITF);
+        final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, formats);
+
+        final int adaptiveRows = countRows(new AdaptiveMultiFormatReader(formats, hints), hints);
+        final int zxingRows = countRows(new MultiFormatOneDReader(hints), hints);
+        assertEquals(zxingRows, adaptiveRows);
+    }
+
+    private static int countRows(@NonNull final Reader reader,
+                                 @NonNull final Map<DecodeHintType, ?> hints) {
+        final AtomicInteger rows = new AtomicInteger();
+        final LuminanceSource source = TestFrames.source(
+                TestFrames.noise(WIDTH, HEIGHT, 2), WIDTH, HEIGHT);
+        assertThrows(NotFoundException.class, () -> reader.decode(
+                new BinaryBitmap(new CountingBinarizer(source, rows)), hints));
+        return rows.get();
+    }
+
+    private static final class CountingBinarizer
+            extends GlobalHistogramBinarizer {
+
+        @NonNull
+        private final AtomicInteger rows;
+
+        CountingBinarizer(@NonNull final LuminanceSource source,
+                          @NonNull final AtomicInteger rows) {
+            super(source);
+            this.rows = rows;
+        }
+
+        @Override
+        @NonNull
+        public BitArray getBlackRow(final int y,
+                                    final BitArray row)
+                throws NotFoundException {
+            rows.incrementAndGet();
+            return super.getBlackRow(y, row);
+        }
+
+        @Override
+        @NonNull
+        public Binarizer createBinarizer(@NonNull final LuminanceSource source) {
+            return new CountingBinarizer(source, rows);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import com.google.zxing.BarcodeFormat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BarcodeFingerprintSetTest {
+
+    private static final long EAN = BarcodeFingerprintSet.fingerprint(
+            BarcodeFormat.EAN_13, "9780201633610");
+
+    @Test
+    void fingerprint() {
+        assertEquals(EAN, BarcodeFingerprintSet.fingerprint(
+                BarcodeFormat.EAN_13, "9780201633610"));
+        // The format is part of the fingerprint
+        assertNotEquals(EAN, BarcodeFingerprintSet.fingerprint(
+                BarcodeFormat.CODE_128, "9780201633610"));
+        assertNotEquals(EAN, BarcodeFingerprintSet.fingerprint(
+                BarcodeFormat.EAN_13, "9780201633611"));
+        // Both bytes of a char are used; the low byte of U+0141 is an "A"
+        assertNotEquals(BarcodeFingerprintSet.fingerprint(BarcodeFormat.QR_CODE, "\u0141"),
+                        BarcodeFingerprintSet.fingerprint(BarcodeFormat.QR_CODE, "A"));
+        assertNotEquals(0, BarcodeFingerprintSet.fingerprint(BarcodeFormat.QR_CODE, null));
+    }
+
+    @Test
+    void addOnce() {
+        final BarcodeFingerprintSet set = new BarcodeFingerprintSet(0);
+        assertTrue(set.add(EAN, 0));
+        assertFalse(set.add(EAN, 0));
+        assertFalse(set.add(EAN, Long.MAX_VALUE));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void expires() {
+        final BarcodeFingerprintSet set = new BarcodeFingerprintSet(1000);
+        assertTrue(set.add(EAN, 0));
+        assertFalse(set.add(EAN, 999));
+        assertTrue(set.add(EAN, 1000));
+        // The ttl restarts when added again
+        assertFalse(set.add(EAN, 1999));
+        assertTrue(set.add(EAN, 2000));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void growsWithoutLosingEntries() {
+        final BarcodeFingerprintSet set = new BarcodeFingerprintSet(0);
+        final Set<Long> fingerprints = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            final long fingerprint = BarcodeFingerprintSet.fingerprint(
+                    BarcodeFormat.CODE_128, String.valueOf(i));
+            fingerprints.add(fingerprint);
+            assertTrue(set.add(fingerprint, 0), "i=" + i);
+        }
+        assertEquals(10_000, fingerprints.size());
+        assertEquals(10_000, set.size());
+        for (final long fingerprint : fingerprints) {
+            assertFalse(set.add(fingerprint, 0));
+        }
+    }
+
+    @Test
+    void growingDropsExpiredEntries() {
+        final BarcodeFingerprintSet set = new BarcodeFingerprintSet(1000);
+        for (int i = 0; i < 100; i++) {
+            set.add(BarcodeFingerprintSet.fingerprint(BarcodeFormat.CODE_128, "old" + i), 0);
+        }
+        // Enough new entries to grow the arrays, long after the old ones expired
+        for (int i = 0; i < 100; i++) {
+            set.add(BarcodeFingerprintSet.fingerprint(BarcodeFormat.CODE_128, "new" + i), 5000);
+        }
+        assertTrue(set.size() < 200, "size=" + set.size());
+        assertFalse(set.add(BarcodeFingerprintSet.fingerprint(BarcodeFormat.CODE_128, "new0"),
+                            5000));
+    }
+
+    @Test
+    void clear() {
+        final BarcodeFingerprintSet set = new BarcodeFingerprintSet(0);
+        set.add(EAN, 0);
+        set.clear();
+        assertEquals(0, set.size());
+        assertTrue(set.add(EAN, 0));
+    }
+}
@@ -0,0 +1,75 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DecoderPrewarmerTest {
+
+    @NonNull
+    private static Decoder createDecoder(@Nullable final Set<BarcodeFormat> formats) {
+        final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        if (formats != null) {
+            hints.put(DecodeHintType.POSSIBLE_FORMATS, formats);
+        }
+        return new DefaultDecoderFactory(hints).createDecoder();
+    }
+
+    @Test
+    void allFormats() {
+        // 2 rounds of a QR-code and a Code 128 frame
+        assertEquals(4, DecoderPrewarmer.run(createDecoder(null)));
+    }
+
+    @Test
+    void restrictedFormats() {
+        assertEquals(2, DecoderPrewarmer.run(createDecoder(EnumSet.of(BarcodeFormat.QR_CODE))));
+        assertEquals(2, DecoderPrewarmer.run(
+                createDecoder(EnumSet.of(BarcodeFormat.CODE_128, BarcodeFormat.EAN_13))));
+        assertEquals(0, DecoderPrewarmer.run(createDecoder(EnumSet.of(BarcodeFormat.EAN_13))));
+    }
+
+    @Test
+    void drainsThePossibleResultPoints() {
+        final Decoder actual = createDecoder(null);
+        final List<Integer> pending = new ArrayList<>();
+        final Decoder decoder = new Decoder() {
+            private int points;
+
+            @Override
+            @Nullable
+            public Result decode(@NonNull final LuminanceSource source) {
+                pending.add(points);
+                points++;
+                return actual.decode(source);
+            }
+
+            @Override
+            @NonNull
+            public List<ResultPoint> getPossibleResultPoints() {
+                points = 0;
+                return actual.getPossibleResultPoints();
+            }
+        };
+
+        DecoderPrewarmer.run(decoder);
+        // 2 rounds of 4 frames, and nothing left over from the previous frame
+        assertEquals(List.of(0, 0, 0, 0, 0, 0, 0, 0), pending);
+    }
+}
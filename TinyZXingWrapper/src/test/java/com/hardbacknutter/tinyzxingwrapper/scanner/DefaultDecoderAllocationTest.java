@@ -0,0 +1,170 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Binarizer;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the steady state allocation per frame, measured on the current thread.
+ * <p>
+ * Binarizing a 640x480 frame the zxing way allocates a {@code BitMatrix} (38400 bytes)
+ * and the threshold arrays for each frame; the binarizers reuse that storage
+ * and allocate nothing once the workspace is set up.
+ * Creating the binarizer still costs the object itself and the 32 histogram
+ * buckets allocated by the {@code GlobalHistogramBinarizer} constructor.
+ * <p>
+ * The decoder cannot get to zero: the zxing readers allocate their own
+ * (small) objects for each frame, e.g. the finder pattern candidates of the QR reader
+ * and the {@code BinaryBitmap}.
+ */
+class DefaultDecoderAllocationTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    /** The camera pads each row; e.g. to a multiple of 64 bytes. */
+    private static final int ROW_STRIDE = 704;
+
+    private static final int WARMUP_FRAMES = 200;
+    private static final int FRAMES = 100;
+
+    /** Per frame; the binarizer object and its histogram buckets. */
+    private static final long BINARIZER_BUDGET_BYTES = 256;
+    /** Per frame; about one tenth of the matrix which is no longer allocated. */
+    private static final long DECODE_BUDGET_BYTES = 4 * 1024;
+    /** Per frame; only the source objects, no frame data. */
+    private static final long CONVERT_BUDGET_BYTES = 512;
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+
+    @BeforeAll
+    static void setUp() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    private static long allocatedBytes() {
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @NonNull
+    private static Decoder createDecoder(@NonNull final BinarizerStrategy strategy) {
+        final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.of(BarcodeFormat.QR_CODE));
+        final DefaultDecoderFactory factory = new DefaultDecoderFactory(hints);
+        factory.setBinarizerStrategy(strategy);
+        return factory.createDecoder();
+    }
+
+    @NonNull
+    private static Binarizer createBinarizer(@NonNull final BinarizerStrategy strategy,
+                                             @NonNull final LuminanceSource source,
+                                             @NonNull final BinarizerWorkspace workspace) {
+        if (strategy == BinarizerStrategy.IntegralImage) {
+            return new IntegralImageBinarizer(source, workspace, 0);
+        }
+        return new ReusableHybridBinarizer(source, workspace);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = BinarizerStrategy.class, names = {"Hybrid", "IntegralImage"})
+    void binarizeAllocatesNothing(@NonNull final BinarizerStrategy strategy)
+            throws NotFoundException {
+        final BinarizerWorkspace workspace = new BinarizerWorkspace();
+        final LuminanceSource source =
+                TestFrames.source(TestFrames.noise(WIDTH, HEIGHT, 1), WIDTH, HEIGHT);
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            createBinarizer(strategy, source, workspace).getBlackMatrix();
+        }
+
+        // The binarizer caches its matrix; each frame needs a new one.
+        final Binarizer[] binarizers = new Binarizer[FRAMES];
+        long start = allocatedBytes();
+        for (int i = 0; i < FRAMES; i++) {
+            binarizers[i] = createBinarizer(strategy, source, workspace);
+        }
+        final long perFrame = (allocatedBytes() - start) / FRAMES;
+
+        start = allocatedBytes();
+        for (final Binarizer binarizer : binarizers) {
+            binarizer.getBlackMatrix();
+        }
+        final long total = allocatedBytes() - start;
+
+        assertEquals(0, total, strategy + ": " + total + " bytes");
+        assertTrue(perFrame <= BINARIZER_BUDGET_BYTES,
+                   strategy + ": " + perFrame + " bytes per binarizer");
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = BinarizerStrategy.class, names = {"Hybrid", "IntegralImage"})
+    void decodeStaysWithinBudget(@NonNull final BinarizerStrategy strategy) {
+        final Decoder decoder = createDecoder(strategy);
+        final byte[] frame = TestFrames.noise(WIDTH, HEIGHT, 1);
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            decoder.decode(TestFrames.source(frame, WIDTH, HEIGHT));
+        }
+        final long start = allocatedBytes();
+        for (int i = 0; i < FRAMES; i++) {
+            decoder.decode(TestFrames.source(frame, WIDTH, HEIGHT));
+        }
+        final long perFrame = (allocatedBytes() - start) / FRAMES;
+
+        assertTrue(perFrame <= DECODE_BUDGET_BYTES,
+                   strategy + ": " + perFrame + " bytes per frame");
+    }
+
+    /**
+     * The conversion done for each camera frame: copy the Y plane,
+     * strip the row padding, mirror (front camera) and rotate.
+     */
+    @Test
+    void convertStaysWithinBudget() {
+        final FrameBuffers buffers = new FrameBuffers();
+        final byte[] plane = TestFrames.noise(ROW_STRIDE, HEIGHT, 2);
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            convert(plane, buffers);
+        }
+        final long start = allocatedBytes();
+        for (int i = 0; i < FRAMES; i++) {
+            convert(plane, buffers);
+        }
+        final long perFrame = (allocatedBytes() - start) / FRAMES;
+
+        assertTrue(perFrame <= CONVERT_BUDGET_BYTES, perFrame + " bytes per frame");
+    }
+
+    @NonNull
+    private static SimpleLuminanceSource convert(@NonNull final byte[] plane,
+                                                 @NonNull final FrameBuffers buffers) {
+        final byte[] yData = buffers.getYData(plane.length);
+        System.arraycopy(plane, 0, yData, 0, plane.length);
+        return new SimpleLuminanceSource(yData, WIDTH, HEIGHT, ROW_STRIDE, 1, buffers)
+                .flipHorizontal(true, buffers)
+                .rotate(90, buffers);
+    }
+}
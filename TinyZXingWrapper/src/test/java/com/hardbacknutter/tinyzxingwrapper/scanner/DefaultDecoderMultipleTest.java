@@ -0,0 +1,88 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultDecoderMultipleTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    @NonNull
+    private static Decoder createDecoder(@NonNull final Set<BarcodeFormat> formats,
+                                         final boolean alsoInverted) {
+        final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, formats);
+        if (alsoInverted) {
+            hints.put(DecodeHintType.ALSO_INVERTED, Boolean.TRUE);
+        }
+        return new DefaultDecoderFactory(hints).createDecoder();
+    }
+
+    /**
+     * Two QR-codes side by side.
+     *
+     * @param inverted {@code true} for light barcodes on a dark background
+     *
+     * @return source
+     */
+    @NonNull
+    private static LuminanceSource createFrame(final boolean inverted) {
+        final byte[] data = TestFrames.blank(WIDTH, HEIGHT, TestFrames.LIGHT & 0xff);
+        TestFrames.draw(data, WIDTH, BarcodeFormat.QR_CODE, "left", 40, 140, 200, 200);
+        TestFrames.draw(data, WIDTH, BarcodeFormat.QR_CODE, "right", 400, 140, 200, 200);
+        if (inverted) {
+            TestFrames.invert(data);
+        }
+        return TestFrames.source(data, WIDTH, HEIGHT);
+    }
+
+    @NonNull
+    private static Set<String> texts(@NonNull final List<Result> results) {
+        return results.stream().map(Result::getText).collect(Collectors.toSet());
+    }
+
+    /**
+     * QR-codes only use the dedicated multi-reader,
+     * any other combination splits the bitmap around each barcode found.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void decodesAll(final boolean qrCodeOnly) {
+        final Set<BarcodeFormat> formats = qrCodeOnly
+                                           ? EnumSet.of(BarcodeFormat.QR_CODE)
+                                           : EnumSet.of(BarcodeFormat.QR_CODE,
+                                                        BarcodeFormat.DATA_MATRIX);
+        assertEquals(Set.of("left", "right"),
+                     texts(createDecoder(formats, false).decodeMultiple(createFrame(false))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void decodesAllInverted(final boolean qrCodeOnly) {
+        final Set<BarcodeFormat> formats = qrCodeOnly
+                                           ? EnumSet.of(BarcodeFormat.QR_CODE)
+                                           : EnumSet.of(BarcodeFormat.QR_CODE,
+                                                        BarcodeFormat.DATA_MATRIX);
+        assertTrue(createDecoder(formats, false).decodeMultiple(createFrame(true)).isEmpty());
+        assertEquals(Set.of("left", "right"),
+                     texts(createDecoder(formats, true).decodeMultiple(createFrame(true))));
+    }
+}
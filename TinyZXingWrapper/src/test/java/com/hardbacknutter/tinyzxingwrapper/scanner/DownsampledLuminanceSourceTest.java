@@ -0,0 +1,86 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DownsampledLuminanceSourceTest {
+
+    @Test
+    void averagesEachBlock() {
+        final byte[] data = {
+                0, 4, 10, 10,
+                8, 4, 10, 11,
+                (byte) 255, (byte) 255, 1, 2,
+                (byte) 255, (byte) 255, 3, 4
+        };
+        final DownsampledLuminanceSource source =
+                new DownsampledLuminanceSource(TestFrames.source(data, 4, 4));
+
+        assertEquals(2, source.getWidth());
+        assertEquals(2, source.getHeight());
+        // (0+4+8+4)/4 = 4; (10+10+10+11)/4 = 10.25 -> 10; 255; (1+2+3+4)/4 = 2.5 -> 3
+        assertArrayEquals(new byte[]{4, 10, (byte) 255, 3}, source.getMatrix());
+    }
+
+    @Test
+    void dropsOddLastRowAndColumn() {
+        final byte[] data = TestFrames.blank(5, 3, 100);
+        // The last column and row are dropped, so these never show up
+        for (int y = 0; y < 3; y++) {
+            data[y * 5 + 4] = 0;
+        }
+        for (int x = 0; x < 5; x++) {
+            data[2 * 5 + x] = 0;
+        }
+        final DownsampledLuminanceSource source =
+                new DownsampledLuminanceSource(TestFrames.source(data, 5, 3));
+
+        assertEquals(2, source.getWidth());
+        assertEquals(1, source.getHeight());
+        assertArrayEquals(new byte[]{100, 100}, source.getMatrix());
+    }
+
+    @Test
+    void getRow() {
+        final byte[] data = new byte[4 * 4];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i / 4 * 40);
+        }
+        final DownsampledLuminanceSource source =
+                new DownsampledLuminanceSource(TestFrames.source(data, 4, 4));
+
+        // rows 2 and 3: (80+80+120+120)/4 = 100
+        assertArrayEquals(new byte[]{100, 100}, source.getRow(1, null));
+        // a larger row buffer is reused
+        final byte[] row = new byte[8];
+        assertEquals(row, source.getRow(0, row));
+        assertThrows(IllegalArgumentException.class, () -> source.getRow(2, null));
+    }
+
+    @Test
+    void tooSmall() {
+        assertThrows(IllegalArgumentException.class, () -> new DownsampledLuminanceSource(
+                TestFrames.source(new byte[3], 3, 1)));
+    }
+
+    @Test
+    void downsampledBarcodeStillDecodes()
+            throws Exception {
+        final byte[] data = TestFrames.barcode(1280, 960, BarcodeFormat.QR_CODE, "pyramid");
+        final DownsampledLuminanceSource source =
+                new DownsampledLuminanceSource(TestFrames.source(data, 1280, 960));
+
+        final Result result = new QRCodeReader().decode(
+                new BinaryBitmap(new HybridBinarizer(source)));
+        assertEquals("pyramid", result.getText());
+    }
+}
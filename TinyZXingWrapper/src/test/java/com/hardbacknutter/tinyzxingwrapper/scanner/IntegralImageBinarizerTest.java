@@ -0,0 +1,271 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntegralImageBinarizerTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final String TEXT = "TinyZXingWrapper-0123456789";
+
+    private static final int BENCHMARK_ROUNDS = 20;
+    private static final BarcodeFormat[] FORMATS = {BarcodeFormat.QR_CODE,
+                                                    BarcodeFormat.DATA_MATRIX,
+                                                    BarcodeFormat.CODE_128};
+
+    @NonNull
+    private static BitMatrix binarize(@NonNull final LuminanceSource source,
+                                      final int windowSize)
+            throws NotFoundException {
+        return new IntegralImageBinarizer(source, new BinarizerWorkspace(), windowSize)
+                .getBlackMatrix();
+    }
+
+    @Test
+    void uniformFrameIsWhite()
+            throws NotFoundException {
+        final BitMatrix matrix = binarize(
+                TestFrames.source(TestFrames.blank(WIDTH, HEIGHT, 128), WIDTH, HEIGHT), 0);
+        assertEquals(WIDTH, matrix.getWidth());
+        assertEquals(HEIGHT, matrix.getHeight());
+        assertNull(matrix.getTopLeftOnBit());
+    }
+
+    @Test
+    void matchesTheWindowMean()
+            throws NotFoundException {
+        final int width = 97;
+        final int height = 61;
+        final int window = 15;
+        final byte[] data = TestFrames.noise(width, height, 3);
+
+        final BitMatrix matrix = binarize(TestFrames.source(data, width, height), window);
+
+        // brute force: the mean of the window, clipped to the image
+        final int half = window / 2;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                long sum = 0;
+                int count = 0;
+                for (int wy = Math.max(0, y - half); wy <= Math.min(height - 1, y + half); wy++) {
+                    for (int wx = Math.max(0, x - half); wx <= Math.min(width - 1, x + half);
+                         wx++) {
+                        sum += data[wy * width + wx] & 0xff;
+                        count++;
+                    }
+                }
+                final boolean black = (data[y * width + x] & 0xff) * count * 100L <= sum * 85;
+                assertEquals(black, matrix.get(x, y), "x=" + x + ", y=" + y);
+            }
+        }
+    }
+
+    @Test
+    void followsTheLocalLighting()
+            throws NotFoundException {
+        // Dark stripes on a dim left half and on a bright right half:
+        // a single global threshold would make the whole left half black.
+        final byte[] data = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                final boolean stripe = (x / 8) % 2 == 0;
+                final int level = x < WIDTH / 2 ? (stripe ? 20 : 70) : (stripe ? 150 : 240);
+                data[y * WIDTH + x] = (byte) level;
+            }
+        }
+        final BitMatrix matrix = binarize(TestFrames.source(data, WIDTH, HEIGHT), 0);
+
+        final int y = HEIGHT / 2;
+        for (final int x : new int[]{32, 36, WIDTH / 2 + 32, WIDTH / 2 + 36}) {
+            assertTrue(matrix.get(x, y), "x=" + x);
+            assertFalse(matrix.get(x + 8, y), "x=" + (x + 8));
+        }
+    }
+
+    @Test
+    void reusesTheMatrix()
+            throws NotFoundException {
+        final BinarizerWorkspace workspace = new BinarizerWorkspace();
+        final LuminanceSource source = TestFrames.source(
+                TestFrames.noise(WIDTH, HEIGHT, 4), WIDTH, HEIGHT);
+
+        final Binarizer binarizer = new IntegralImageBinarizer(source, workspace, 0);
+        final BitMatrix first = binarizer.getBlackMatrix();
+        assertSame(first, binarizer.getBlackMatrix());
+
+        final BitMatrix next = new IntegralImageBinarizer(source, workspace, 0)
+                .getBlackMatrix();
+        assertSame(first, next);
+    }
+
+    @Test
+    void smallFrameFallsBackToGlobal()
+            throws NotFoundException {
+        final BitMatrix matrix = binarize(
+                TestFrames.source(TestFrames.noise(32, 32, 5), 32, 32), 0);
+        assertEquals(32, matrix.getWidth());
+    }
+
+    /**
+     * Darken a frame from full brightness at the right edge to 30% at the left edge;
+     * i.e. a frame lit from the side.
+     *
+     * @param data Y data
+     *
+     * @return the same Y data
+     */
+    @NonNull
+    private static byte[] shade(@NonNull final byte[] data) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                final int i = y * WIDTH + x;
+                final int factor = 30 + 70 * x / WIDTH;
+                data[i] = (byte) ((data[i] & 0xff) * factor / 100);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Add noise in the range {@code [-amplitude, amplitude]}.
+     *
+     * @param data      Y data
+     * @param amplitude of the noise
+     *
+     * @return the same Y data
+     */
+    @NonNull
+    private static byte[] addNoise(@NonNull final byte[] data,
+                                   final int amplitude) {
+        final Random random = new Random(6);
+        for (int i = 0; i < data.length; i++) {
+            final int value = (data[i] & 0xff) + random.nextInt(2 * amplitude + 1) - amplitude;
+            data[i] = (byte) Math.max(0, Math.min(255, value));
+        }
+        return data;
+    }
+
+    @NonNull
+    private static List<LuminanceSource> createFixtures(@NonNull final BarcodeFormat format) {
+        final List<LuminanceSource> fixtures = new ArrayList<>();
+        fixtures.add(TestFrames.source(
+                TestFrames.barcode(WIDTH, HEIGHT, format, TEXT), WIDTH, HEIGHT));
+        fixtures.add(TestFrames.source(
+                shade(TestFrames.barcode(WIDTH, HEIGHT, format, TEXT)), WIDTH, HEIGHT));
+        fixtures.add(TestFrames.source(
+                addNoise(TestFrames.barcode(WIDTH, HEIGHT, format, TEXT), 40), WIDTH, HEIGHT));
+        fixtures.add(TestFrames.source(
+                addNoise(shade(TestFrames.barcode(WIDTH, HEIGHT, format, TEXT)), 30),
+                WIDTH, HEIGHT));
+        return fixtures;
+    }
+
+    /**
+     * Binarize and decode each fixture for a number of rounds.
+     *
+     * @return the number of decoded fixtures in the last round, and the total time in nanos
+     */
+    @NonNull
+    private static long[] run(@NonNull final List<LuminanceSource> fixtures,
+                              @NonNull final BarcodeFormat format,
+                              @NonNull final Function<LuminanceSource, Binarizer> factory,
+                              final int rounds) {
+        final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.of(format));
+        final MultiFormatReader reader = new MultiFormatReader();
+        reader.setHints(hints);
+
+        int decoded = 0;
+        final long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            decoded = 0;
+            for (final LuminanceSource source : fixtures) {
+                try {
+                    final Result result = reader.decodeWithState(
+                            new BinaryBitmap(factory.apply(source)));
+                    if (TEXT.equals(result.getText())) {
+                        decoded++;
+                    }
+                } catch (@NonNull final ReaderException ignore) {
+                    // not decoded
+                }
+            }
+        }
+        return new long[]{decoded, System.nanoTime() - start};
+    }
+
+    /**
+     * Binarize identical fixture frames with both binarizers, and compare the decode success.
+     */
+    @Test
+    void decodesAsManyAsHybrid() {
+        final BinarizerWorkspace workspace = new BinarizerWorkspace();
+        for (final BarcodeFormat format : FORMATS) {
+            final List<LuminanceSource> fixtures = createFixtures(format);
+            final long[] hybrid = run(fixtures, format, HybridBinarizer::new, 1);
+            final long[] integral = run(fixtures, format, source ->
+                    new IntegralImageBinarizer(source, workspace, 0), 1);
+
+            assertTrue(integral[0] >= hybrid[0], format + ": decoded fewer fixtures");
+        }
+    }
+
+    /**
+     * Benchmark: as {@link #decodesAsManyAsHybrid()}, and compare the time taken.
+     * Only runs with {@code -Pbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void compareWithHybrid(@NonNull final TestReporter reporter) {
+        final BinarizerWorkspace workspace = new BinarizerWorkspace();
+        for (final BarcodeFormat format : FORMATS) {
+            final List<LuminanceSource> fixtures = createFixtures(format);
+            final Function<LuminanceSource, Binarizer> integralImage = source ->
+                    new IntegralImageBinarizer(source, workspace, 0);
+            // warm up both
+            run(fixtures, format, HybridBinarizer::new, BENCHMARK_ROUNDS);
+            run(fixtures, format, integralImage, BENCHMARK_ROUNDS);
+
+            final long[] hybrid = run(fixtures, format, HybridBinarizer::new, BENCHMARK_ROUNDS);
+            final long[] integral = run(fixtures, format, integralImage, BENCHMARK_ROUNDS);
+
+            final int frames = BENCHMARK_ROUNDS * fixtures.size();
+            reporter.publishEntry(format.name(), String.format(
+                    "Hybrid: %d/%d in %.2f ms/frame, IntegralImage: %d/%d in %.2f ms/frame",
+                    hybrid[0], fixtures.size(), hybrid[1] / 1e6 / frames,
+                    integral[0], fixtures.size(), integral[1] / 1e6 / frames));
+
+            assertTrue(integral[0] >= hybrid[0], format + ": decoded fewer fixtures");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.Result;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LaserBandDecoderTest {
+
+    /** Code 39 without a check digit. */
+    private static final String TEXT = "TINYZXING";
+
+    private final byte[] frame = TestFrames.barcode(640, 480, BarcodeFormat.CODE_39, TEXT);
+
+    @Test
+    void decodesTheBand() {
+        final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.CODE_39));
+
+        final Result result = new LaserBandDecoder(hints)
+                .decode(TestFrames.source(frame, 640, 480));
+        assertNotNull(result);
+        assertEquals(TEXT, result.getText());
+    }
+
+    @Test
+    void ignoresQrCodes() {
+        final byte[] qrCode = TestFrames.barcode(640, 480, BarcodeFormat.QR_CODE, TEXT);
+        assertNull(new LaserBandDecoder(Map.of())
+                           .decode(TestFrames.source(qrCode, 640, 480)));
+    }
+
+    @Test
+    void disabledHintsAreIgnored() {
+        final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.CODE_39));
+        // A present hint would reject the last character as a bad check digit.
+        hints.put(DecodeHintType.ASSUME_CODE_39_CHECK_DIGIT, Boolean.FALSE);
+        hints.put(DecodeHintType.ASSUME_GS1, Boolean.FALSE);
+
+        final Result result = new LaserBandDecoder(hints)
+                .decode(TestFrames.source(frame, 640, 480));
+        assertNotNull(result);
+        assertEquals(TEXT, result.getText());
+    }
+}
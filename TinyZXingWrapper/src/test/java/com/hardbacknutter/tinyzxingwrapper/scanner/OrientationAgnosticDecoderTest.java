@@ -0,0 +1,51 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.Result;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class OrientationAgnosticDecoderTest {
+
+    /** Code 39 without a check digit. */
+    private static final String TEXT = "TINYZXING";
+
+    @NonNull
+    private static Result decodeVertical(@NonNull final Map<DecodeHintType, Object> hints) {
+        final byte[] landscape = TestFrames.barcode(640, 480, BarcodeFormat.CODE_39, TEXT);
+        final byte[] portrait = TestFrames.source(landscape, 640, 480).rotate(90).getMatrix();
+
+        final Decoder decoder = new OrientationAgnosticDecoder(
+                new DefaultDecoderFactory(hints).createDecoder(), hints);
+        final Result result = decoder.decode(TestFrames.source(portrait, 480, 640));
+        assertNotNull(result);
+        return result;
+    }
+
+    @Test
+    void decodesVerticalBarcodes() {
+        final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.CODE_39));
+        assertEquals(TEXT, decodeVertical(hints).getText());
+    }
+
+    @Test
+    void disabledHintsAreIgnored() {
+        final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.CODE_39));
+        // A present hint would reject the last character as a bad check digit.
+        hints.put(DecodeHintType.ASSUME_CODE_39_CHECK_DIGIT, Boolean.FALSE);
+        hints.put(DecodeHintType.TRY_HARDER, Boolean.FALSE);
+        assertEquals(TEXT, decodeVertical(hints).getText());
+    }
+}
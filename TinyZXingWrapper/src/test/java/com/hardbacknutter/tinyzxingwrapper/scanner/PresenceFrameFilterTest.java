@@ -0,0 +1,41 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import com.google.zxing.BarcodeFormat;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PresenceFrameFilterTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    private final FrameFilter filter = new PresenceFrameFilter();
+
+    private boolean accept(final byte[] frame) {
+        return filter.accept(ByteBuffer.wrap(frame), WIDTH, HEIGHT, WIDTH, 1);
+    }
+
+    @Test
+    void skipsBlankFrames() {
+        assertFalse(accept(TestFrames.blank(WIDTH, HEIGHT, TestFrames.LIGHT & 0xff)));
+    }
+
+    @Test
+    void acceptsBarcodes() {
+        assertTrue(accept(TestFrames.barcode(WIDTH, HEIGHT, BarcodeFormat.CODE_128,
+                                             "TinyZXingWrapper")));
+        assertTrue(accept(TestFrames.barcode(WIDTH, HEIGHT, BarcodeFormat.QR_CODE,
+                                             "TinyZXingWrapper")));
+    }
+
+    @Test
+    void acceptsSmallFrames() {
+        // too small to judge
+        assertTrue(filter.accept(ByteBuffer.wrap(new byte[16 * 16]), 16, 16, 16, 1));
+    }
+}
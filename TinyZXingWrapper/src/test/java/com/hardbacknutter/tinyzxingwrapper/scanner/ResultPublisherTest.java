@@ -0,0 +1,268 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultPublisherTest {
+
+    private final AtomicInteger started = new AtomicInteger();
+    private final AtomicInteger stopped = new AtomicInteger();
+
+    @NonNull
+    private static Result result(@NonNull final String text) {
+        return new Result(text, null, null, BarcodeFormat.QR_CODE);
+    }
+
+    @NonNull
+    private static List<Result> results(final int count) {
+        return IntStream.range(0, count)
+                        .mapToObj(i -> result(String.valueOf(i)))
+                        .collect(Collectors.toList());
+    }
+
+    @NonNull
+    private ResultPublisher createPublisher(final boolean completeAfterFirst) {
+        return new ResultPublisher(completeAfterFirst,
+                                   publisher -> started.incrementAndGet(),
+                                   publisher -> stopped.incrementAndGet());
+    }
+
+    /** Records all signals; can request more from {@link #onNext(Result)}. */
+    private static class TestSubscriber
+            implements ResultFlow.Subscriber<Result> {
+
+        final List<String> items = Collections.synchronizedList(new ArrayList<>());
+        @Nullable
+        ResultFlow.Subscription subscription;
+        @Nullable
+        volatile Throwable error;
+        volatile boolean completed;
+        /** Request this many more for each item. */
+        int requestOnNext;
+        /** Set if the subscriber was ever called concurrently or re-entrantly. */
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        private final AtomicBoolean inOnNext = new AtomicBoolean();
+
+        @Override
+        public void onSubscribe(@NonNull final ResultFlow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(@NonNull final Result item) {
+            if (!inOnNext.compareAndSet(false, true)) {
+                overlapped.set(true);
+            }
+            items.add(item.getText());
+            if (requestOnNext > 0) {
+                //noinspection DataFlowIssue
+                subscription.request(requestOnNext);
+            }
+            inOnNext.set(false);
+        }
+
+        @Override
+        public void onError(@NonNull final Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        void request(final long n) {
+            //noinspection DataFlowIssue
+            subscription.request(n);
+        }
+    }
+
+    @Test
+    void subscribeStartsAndCancelStops() {
+        final ResultPublisher publisher = createPublisher(false);
+        final TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+        assertNotNull(subscriber.subscription);
+        assertEquals(1, started.get());
+
+        subscriber.subscription.cancel();
+        subscriber.subscription.cancel();
+        assertEquals(1, stopped.get());
+        assertFalse(publisher.hasDemand());
+
+        publisher.onResult(result("late"));
+        assertTrue(subscriber.items.isEmpty());
+    }
+
+    @Test
+    void demandGatesTheAnalysis() {
+        final ResultPublisher publisher = createPublisher(false);
+        final TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+        assertFalse(publisher.hasDemand());
+
+        subscriber.request(2);
+        assertTrue(publisher.hasDemand());
+        publisher.onResult(result("a"));
+        assertTrue(publisher.hasDemand());
+        publisher.onResult(result("b"));
+        assertFalse(publisher.hasDemand());
+
+        assertEquals(List.of("a", "b"), subscriber.items);
+    }
+
+    @Test
+    void batchIsBufferedAndDrainedOnRequest() {
+        final ResultPublisher publisher = createPublisher(false);
+        final TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.request(1);
+        publisher.onMultipleResults(results(3));
+        assertEquals(List.of("0"), subscriber.items);
+        assertFalse(publisher.hasDemand());
+
+        subscriber.request(1);
+        assertEquals(List.of("0", "1"), subscriber.items);
+        assertFalse(publisher.hasDemand());
+
+        // Two are met by the buffer; the scanner is only needed for the rest
+        subscriber.request(5);
+        assertEquals(List.of("0", "1", "2"), subscriber.items);
+        assertTrue(publisher.hasDemand());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void requestFromOnNextDoesNotRecurse() {
+        final ResultPublisher publisher = createPublisher(false);
+        final TestSubscriber subscriber = new TestSubscriber();
+        subscriber.requestOnNext = 1;
+        publisher.subscribe(subscriber);
+
+        subscriber.request(1);
+        publisher.onMultipleResults(results(100));
+        assertEquals(100, subscriber.items.size());
+        assertFalse(subscriber.overlapped.get());
+    }
+
+    @Test
+    void secondSubscriberIsRejected() {
+        final ResultPublisher publisher = createPublisher(false);
+        final TestSubscriber first = new TestSubscriber();
+        final TestSubscriber second = new TestSubscriber();
+        publisher.subscribe(first);
+        publisher.subscribe(second);
+
+        assertInstanceOf(IllegalStateException.class, second.error);
+        assertEquals(1, started.get());
+
+        first.request(1);
+        publisher.onResult(result("a"));
+        assertEquals(List.of("a"), first.items);
+        assertNull(first.error);
+    }
+
+    @Test
+    void invalidRequestIsAnError() {
+        final ResultPublisher publisher = createPublisher(false);
+        final TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.request(0);
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        assertEquals(1, stopped.get());
+    }
+
+    @Test
+    void errorIsNotDelayedByTheBuffer() {
+        final ResultPublisher publisher = createPublisher(false);
+        final TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.request(1);
+        publisher.onMultipleResults(results(3));
+        final IllegalStateException e = new IllegalStateException("camera");
+        publisher.onError(e);
+
+        assertEquals(List.of("0"), subscriber.items);
+        assertEquals(e, subscriber.error);
+        assertEquals(1, stopped.get());
+
+        // Nothing after the terminal signal
+        subscriber.request(10);
+        publisher.onResult(result("late"));
+        assertEquals(List.of("0"), subscriber.items);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void completeAfterFirst() {
+        final ResultPublisher publisher = createPublisher(true);
+        final TestSubscriber subscriber = new TestSubscriber();
+        publisher.subscribe(subscriber);
+
+        // Without demand the result is kept, and completion waits for it
+        publisher.onResult(result("a"));
+        assertTrue(subscriber.items.isEmpty());
+        assertFalse(subscriber.completed);
+        assertFalse(publisher.hasDemand());
+
+        subscriber.request(1);
+        assertEquals(List.of("a"), subscriber.items);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertEquals(1, stopped.get());
+
+        publisher.onResult(result("b"));
+        assertEquals(List.of("a"), subscriber.items);
+    }
+
+    @Test
+    void concurrentProducerAndConsumer()
+            throws InterruptedException {
+        final ResultPublisher publisher = createPublisher(false);
+        final TestSubscriber subscriber = new TestSubscriber();
+        subscriber.requestOnNext = 1;
+        publisher.subscribe(subscriber);
+
+        final int count = 10_000;
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                publisher.onResult(result(String.valueOf(i)));
+            }
+        });
+        producer.start();
+        // Requests race with the results
+        for (int i = 0; i < 10; i++) {
+            subscriber.request(1);
+        }
+        producer.join();
+
+        assertEquals(IntStream.range(0, count)
+                              .mapToObj(String::valueOf)
+                              .collect(Collectors.toList()),
+                     subscriber.items);
+        assertFalse(subscriber.overlapped.get());
+    }
+}
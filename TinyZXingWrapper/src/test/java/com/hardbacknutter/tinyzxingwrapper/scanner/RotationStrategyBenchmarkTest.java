@@ -0,0 +1,152 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the per-frame cost of {@link RotationStrategy#Java} and {@link RotationStrategy#None}
+ * on the same frames, as delivered by a sensor mounted in landscape orientation
+ * while the device is held in portrait.
+ * <p>
+ * {@link RotationStrategy#CameraX} rotates in native code before the frame reaches
+ * the analyser; it can only be measured on a device, see {@link ScannerMetrics}.
+ */
+class RotationStrategyBenchmarkTest {
+
+    /** Sensor orientation. */
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    private static final int BENCHMARK_ROUNDS = 50;
+
+    private static final Map<String, BarcodeFormat> BARCODES = Map.of(
+            "TinyZXingWrapper", BarcodeFormat.CODE_128,
+            "9780201633610", BarcodeFormat.EAN_13,
+            "QR-code", BarcodeFormat.QR_CODE);
+
+    @NonNull
+    private static Map<DecodeHintType, Object> createHints() {
+        final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.copyOf(BARCODES.values()));
+        return hints;
+    }
+
+    /**
+     * Render each barcode upright in a portrait frame, and turn it into
+     * the sensor orientation; i.e. rotating by 90 degrees brings it upright again.
+     * One frame without a barcode is added; the most common case when scanning.
+     *
+     * @return Y data of the frames in sensor orientation
+     */
+    @NonNull
+    private static List<byte[]> createFrames() {
+        final List<byte[]> frames = new ArrayList<>();
+        BARCODES.forEach((text, format) -> {
+            final byte[] portrait = TestFrames.barcode(HEIGHT, WIDTH, format, text);
+            frames.add(TestFrames.source(portrait, HEIGHT, WIDTH).rotate(270).getMatrix());
+        });
+        frames.add(TestFrames.noise(WIDTH, HEIGHT, 1));
+        return frames;
+    }
+
+    /**
+     * {@link RotationStrategy#Java}: rotate the frame, then decode.
+     *
+     * @return the number of frames decoded in the last round, and the total time in nanos
+     */
+    @NonNull
+    private static long[] runJava(@NonNull final List<byte[]> frames,
+                                  final int rounds) {
+        final Decoder decoder = new DefaultDecoderFactory(createHints()).createDecoder();
+        final FrameBuffers buffers = new FrameBuffers();
+        return run(frames, rounds, frame -> decoder.decode(
+                new SimpleLuminanceSource(frame, WIDTH, HEIGHT, WIDTH, 1, buffers)
+                        .rotate(90, buffers)));
+    }
+
+    /**
+     * {@link RotationStrategy#None}: decode the frame as-is.
+     *
+     * @return the number of frames decoded in the last round, and the total time in nanos
+     */
+    @NonNull
+    private static long[] runNone(@NonNull final List<byte[]> frames,
+                                  final int rounds) {
+        final Map<DecodeHintType, Object> hints = createHints();
+        final Decoder decoder = new OrientationAgnosticDecoder(
+                new DefaultDecoderFactory(hints).createDecoder(), hints);
+        return run(frames, rounds, frame -> decoder.decode(
+                new SimpleLuminanceSource(frame, WIDTH, HEIGHT, WIDTH, 1)));
+    }
+
+    private interface FrameDecoder {
+
+        Result decode(@NonNull byte[] frame);
+    }
+
+    @NonNull
+    private static long[] run(@NonNull final List<byte[]> frames,
+                              final int rounds,
+                              @NonNull final FrameDecoder decoder) {
+        int decoded = 0;
+        final long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            decoded = 0;
+            for (final byte[] frame : frames) {
+                final Result result = decoder.decode(frame);
+                if (result != null && BARCODES.containsKey(result.getText())) {
+                    decoded++;
+                }
+            }
+        }
+        return new long[]{decoded, System.nanoTime() - start};
+    }
+
+    @Test
+    void bothDecodeAllBarcodes() {
+        final List<byte[]> frames = createFrames();
+        assertEquals(BARCODES.size(), runJava(frames, 1)[0]);
+        assertEquals(BARCODES.size(), runNone(frames, 1)[0]);
+    }
+
+    /**
+     * Benchmark: the time per frame of each strategy.
+     * Only runs with {@code -Pbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void compareStrategies(@NonNull final TestReporter reporter) {
+        final List<byte[]> frames = createFrames();
+        // warm up both
+        runJava(frames, BENCHMARK_ROUNDS);
+        runNone(frames, BENCHMARK_ROUNDS);
+
+        final long[] java = runJava(frames, BENCHMARK_ROUNDS);
+        final long[] none = runNone(frames, BENCHMARK_ROUNDS);
+
+        final int count = BENCHMARK_ROUNDS * frames.size();
+        reporter.publishEntry(RotationStrategy.Java.name(),
+                              String.format("%.2f ms/frame", java[1] / 1e6 / count));
+        reporter.publishEntry(RotationStrategy.None.name(),
+                              String.format("%.2f ms/frame", none[1] / 1e6 / count));
+
+        assertEquals(BARCODES.size(), java[0]);
+        assertEquals(BARCODES.size(), none[0]);
+    }
+}
@@ -0,0 +1,81 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScannerMetricsTest {
+
+    @Test
+    void counters() {
+        final ScannerMetrics metrics = new ScannerMetrics();
+        assertEquals(0, metrics.getCount(ScannerMetrics.FRAME_PAUSED));
+
+        metrics.increment(ScannerMetrics.FRAME_PAUSED);
+        metrics.increment(ScannerMetrics.FRAME_PAUSED);
+        metrics.increment(ScannerMetrics.FRAME_NO_DEMAND);
+        assertEquals(2, metrics.getCount(ScannerMetrics.FRAME_PAUSED));
+        assertEquals(1, metrics.getCount(ScannerMetrics.FRAME_NO_DEMAND));
+    }
+
+    @Test
+    void timers() {
+        final ScannerMetrics metrics = new ScannerMetrics();
+        assertEquals(0, metrics.getTimerCount(ScannerMetrics.FRAME_DECODE));
+        assertEquals(0, metrics.getAverageMillis(ScannerMetrics.FRAME_DECODE));
+
+        metrics.addTime(ScannerMetrics.FRAME_DECODE, 1_000_000);
+        metrics.addTime(ScannerMetrics.FRAME_DECODE, 3_000_000);
+        assertEquals(2, metrics.getTimerCount(ScannerMetrics.FRAME_DECODE));
+        assertEquals(2.0, metrics.getAverageMillis(ScannerMetrics.FRAME_DECODE), 1e-9);
+    }
+
+    @Test
+    void reset() {
+        final ScannerMetrics metrics = new ScannerMetrics();
+        metrics.increment(ScannerMetrics.FRAME_PAUSED);
+        metrics.addTime(ScannerMetrics.FRAME_DECODE, 1_000_000);
+
+        metrics.reset();
+        assertEquals(0, metrics.getCount(ScannerMetrics.FRAME_PAUSED));
+        assertEquals(0, metrics.getTimerCount(ScannerMetrics.FRAME_DECODE));
+    }
+
+    @Test
+    void toStringIsSorted() {
+        final ScannerMetrics metrics = new ScannerMetrics();
+        metrics.increment("b");
+        metrics.increment("a");
+        metrics.addTime("t", 2_000_000);
+
+        final String s = metrics.toString();
+        assertTrue(s.indexOf("a=1") < s.indexOf("b=1"), s);
+        assertTrue(s.contains("t=1x2.00ms"), s);
+    }
+
+    @Test
+    void concurrentUpdates()
+            throws InterruptedException {
+        final ScannerMetrics metrics = new ScannerMetrics();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    metrics.increment(ScannerMetrics.FRAME_FILTER_PASSED);
+                    metrics.addTime(ScannerMetrics.FRAME_FILTER, 1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, metrics.getCount(ScannerMetrics.FRAME_FILTER_PASSED));
+        assertEquals(40_000, metrics.getTimerCount(ScannerMetrics.FRAME_FILTER));
+    }
+}
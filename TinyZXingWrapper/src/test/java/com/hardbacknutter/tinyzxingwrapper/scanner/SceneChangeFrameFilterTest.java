@@ -0,0 +1,64 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import com.google.zxing.BarcodeFormat;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SceneChangeFrameFilterTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int RETRY_INTERVAL = 5;
+
+    private final FrameFilter filter = new SceneChangeFrameFilter(
+            SceneChangeFrameFilter.DEFAULT_THRESHOLD, RETRY_INTERVAL);
+
+    private final byte[] empty = TestFrames.blank(WIDTH, HEIGHT, TestFrames.LIGHT & 0xff);
+    private final byte[] barcode = TestFrames.barcode(WIDTH, HEIGHT, BarcodeFormat.CODE_128,
+                                                      "TinyZXingWrapper");
+
+    private boolean accept(final byte[] frame) {
+        return filter.accept(ByteBuffer.wrap(frame), WIDTH, HEIGHT, WIDTH, 1);
+    }
+
+    @Test
+    void acceptsUntilDecoded() {
+        assertTrue(accept(barcode));
+        assertTrue(accept(barcode));
+    }
+
+    @Test
+    void skipsTheSameBarcode() {
+        assertTrue(accept(barcode));
+        filter.onDecoded(true);
+        for (int i = 0; i < RETRY_INTERVAL * 3; i++) {
+            assertFalse(accept(barcode), "frame " + i);
+        }
+        // The barcode was taken away
+        assertTrue(accept(empty));
+    }
+
+    @Test
+    void retriesAnEmptyScene() {
+        assertTrue(accept(empty));
+        filter.onDecoded(false);
+        for (int i = 1; i < RETRY_INTERVAL; i++) {
+            assertFalse(accept(empty), "frame " + i);
+        }
+        assertTrue(accept(empty));
+        filter.onDecoded(false);
+        assertFalse(accept(empty));
+    }
+
+    @Test
+    void acceptsANewBarcode() {
+        assertTrue(accept(empty));
+        filter.onDecoded(false);
+        assertTrue(accept(barcode));
+    }
+}
@@ -0,0 +1,52 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import com.google.zxing.BarcodeFormat;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharpnessFrameFilterTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    private final SharpnessFrameFilter filter = new SharpnessFrameFilter();
+
+    private final byte[] sharp = TestFrames.barcode(WIDTH, HEIGHT, BarcodeFormat.CODE_128,
+                                                    "TinyZXingWrapper");
+    private final byte[] blurred = TestFrames.blur(sharp, WIDTH, HEIGHT, 3);
+
+    private boolean accept(final byte[] frame) {
+        return filter.accept(ByteBuffer.wrap(frame), WIDTH, HEIGHT, WIDTH, 1);
+    }
+
+    @Test
+    void uniformFramesHaveNoSharpness() {
+        final byte[] frame = TestFrames.blank(WIDTH, HEIGHT, 0x80);
+        assertEquals(0, filter.getSharpness(ByteBuffer.wrap(frame), WIDTH, HEIGHT, WIDTH, 1));
+    }
+
+    @Test
+    void skipsBlurredFrames() {
+        assertTrue(accept(sharp));
+        assertFalse(accept(blurred));
+        assertTrue(accept(sharp));
+    }
+
+    @Test
+    void followsTheScene() {
+        assertTrue(accept(sharp));
+        // The peak decays until the blurred scene is the best on offer.
+        int frames = 1;
+        while (!accept(blurred)) {
+            frames++;
+        }
+        assertTrue(frames > 1);
+        assertTrue(frames < 100, frames + " frames");
+    }
+}
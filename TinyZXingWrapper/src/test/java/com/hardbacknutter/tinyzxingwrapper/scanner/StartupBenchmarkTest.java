@@ -0,0 +1,188 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.Result;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark: the cost of creating the decoder and decoding the first frame,
+ * each measured in a new JVM, i.e. including the class loading.
+ * <p>
+ * Compares the {@link DefaultDecoderFactory} with an eagerly configured
+ * {@link MultiFormatReader}, for a number of configurations.
+ * The times are reported; the results and the classes loaded are asserted.
+ * <p>
+ * Starts 30 JVMs; only runs with {@code -Pbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StartupBenchmarkTest {
+
+    /** The number of JVMs started for each mode/configuration; the median is reported. */
+    private static final int RUNS = 5;
+    private static final String TEXT = "TinyZXingWrapper";
+    private static final String RESULT = "RESULT";
+
+    enum Configuration {
+        AllFormats,
+        SomeFormats,
+        AllFormatsTryHarder;
+
+        @NonNull
+        Map<DecodeHintType, Object> getHints() {
+            final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+            if (this == SomeFormats) {
+                hints.put(DecodeHintType.POSSIBLE_FORMATS,
+                          EnumSet.of(BarcodeFormat.QR_CODE, BarcodeFormat.EAN_13,
+                                     BarcodeFormat.CODE_128));
+            } else if (this == AllFormatsTryHarder) {
+                hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+            }
+            return hints;
+        }
+    }
+
+    enum Mode {
+        Eager,
+        Lazy
+    }
+
+    /**
+     * Runs in the child JVM; the result is written to stdout for the parent.
+     *
+     * @param args the {@link Mode} and the {@link Configuration}
+     */
+    public static void main(@NonNull final String[] args) {
+        final Mode mode = Mode.valueOf(args[0]);
+        final Configuration configuration = Configuration.valueOf(args[1]);
+        final LuminanceSource frame = TestFrames.source(
+                TestFrames.barcode(640, 480, BarcodeFormat.QR_CODE, TEXT), 640, 480);
+
+        final long start = System.nanoTime();
+        final Decoder decoder;
+        if (mode == Mode.Eager) {
+            final Map<DecodeHintType, Object> hints =
+                    DefaultDecoderFactory.normalize(configuration.getHints());
+            final MultiFormatReader reader = new MultiFormatReader();
+            decoder = new DefaultDecoder(reader, hints);
+            hints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, decoder);
+            reader.setHints(hints);
+        } else {
+            decoder = new DefaultDecoderFactory(configuration.getHints()).createDecoder();
+        }
+        final long created = System.nanoTime();
+        final Result result = decoder.decode(frame);
+        final long decoded = System.nanoTime();
+
+        System.out.println(RESULT + ' ' + (created - start) + ' ' + (decoded - created)
+                           + ' ' + (result != null ? result.getText() : ""));
+    }
+
+    /** The outcome of a single child JVM. */
+    private static final class Run {
+
+        final long createNanos;
+        final long firstDecodeNanos;
+        final String text;
+        /** The zxing reader classes loaded. */
+        final int readerClasses;
+
+        Run(final long createNanos,
+            final long firstDecodeNanos,
+            @NonNull final String text,
+            final int readerClasses) {
+            this.createNanos = createNanos;
+            this.firstDecodeNanos = firstDecodeNanos;
+            this.text = text;
+            this.readerClasses = readerClasses;
+        }
+    }
+
+    @NonNull
+    private static Run launch(@NonNull final Mode mode,
+                              @NonNull final Configuration configuration)
+            throws IOException, InterruptedException {
+        final String java = System.getProperty("java.home") + File.separator + "bin"
+                            + File.separator + "java";
+        final Process process = new ProcessBuilder(
+                java, "-Xlog:class+load=info:stdout",
+                "-cp", System.getProperty("java.class.path"),
+                StartupBenchmarkTest.class.getName(), mode.name(), configuration.name())
+                .redirectErrorStream(true)
+                .start();
+
+        String[] result = null;
+        int readerClasses = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT + ' ')) {
+                    result = line.split(" ", 4);
+                } else if (line.contains(" com.google.zxing.")
+                           && !line.contains(" com.google.zxing.qrcode.encoder.")
+                           && !line.contains("Writer ")) {
+                    // Only count the decoding classes; not those used to create the frame
+                    readerClasses++;
+                }
+            }
+        }
+        assertEquals(0, process.waitFor(), mode + "/" + configuration);
+        assertTrue(result != null, mode + "/" + configuration);
+        return new Run(Long.parseLong(result[1]), Long.parseLong(result[2]),
+                       result.length > 3 ? result[3] : "", readerClasses);
+    }
+
+    private static double median(@NonNull final long[] values) {
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+
+    @Test
+    void startup(@NonNull final TestReporter reporter)
+            throws IOException, InterruptedException {
+        for (final Configuration configuration : Configuration.values()) {
+            final Map<Mode, Integer> classes = new EnumMap<>(Mode.class);
+            for (final Mode mode : Mode.values()) {
+                final List<Run> runs = new ArrayList<>();
+                for (int i = 0; i < RUNS; i++) {
+                    final Run run = launch(mode, configuration);
+                    assertEquals(TEXT, run.text, mode + "/" + configuration);
+                    runs.add(run);
+                }
+                classes.put(mode, runs.get(0).readerClasses);
+                reporter.publishEntry(configuration + "." + mode, String.format(
+                        "createDecoder: %.1f ms, first decode: %.1f ms, reader classes: %d",
+                        median(runs.stream().mapToLong(r -> r.createNanos).toArray()),
+                        median(runs.stream().mapToLong(r -> r.firstDecodeNanos).toArray()),
+                        runs.get(0).readerClasses));
+            }
+            // Never more reader classes than the eager MultiFormatReader needs
+            assertTrue(classes.get(Mode.Lazy) <= classes.get(Mode.Eager),
+                       configuration + ": " + classes);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Synthetic camera frames for the tests: Y data only, no padding.
+ */
+final class TestFrames {
+
+    static final byte LIGHT = (byte) 0xE0;
+    static final byte DARK = (byte) 0x20;
+
+    private TestFrames() {
+    }
+
+    /**
+     * Create a frame with a uniform gray level.
+     *
+     * @param width  of the frame
+     * @param height of the frame
+     * @param value  gray level
+     *
+     * @return Y data
+     */
+    @NonNull
+    static byte[] blank(final int width,
+                        final int height,
+                        final int value) {
+        final byte[] data = new byte[width * height];
+        Arrays.fill(data, (byte) value);
+        return data;
+    }
+
+    /**
+     * Create a frame with random noise.
+     *
+     * @param width  of the frame
+     * @param height of the frame
+     * @param seed   for the random generator
+     *
+     * @return Y data
+     */
+    @NonNull
+    static byte[] noise(final int width,
+                        final int height,
+                        final long seed) {
+        final byte[] data = new byte[width * height];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Render a barcode, dark on a light background, into an existing frame.
+     *
+     * @param data         Y data of the frame
+     * @param frameWidth   of the frame
+     * @param format       of the barcode
+     * @param text         to encode
+     * @param left         position of the barcode
+     * @param top          position of the barcode
+     * @param width        of the barcode, including the quiet zone
+     * @param height       of the barcode, including the quiet zone
+     *
+     * @return the same Y data
+     */
+    @NonNull
+    static byte[] draw(@NonNull final byte[] data,
+                       final int frameWidth,
+                       @NonNull final BarcodeFormat format,
+                       @NonNull final String text,
+                       final int left,
+                       final int top,
+                       final int width,
+                       final int height) {
+        final BitMatrix matrix;
+        try {
+            matrix = new MultiFormatWriter().encode(text, format, width, height);
+        } catch (@NonNull final WriterException e) {
+            throw new IllegalArgumentException(e);
+        }
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            final int offset = (top + y) * frameWidth + left;
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                data[offset + x] = matrix.get(x, y) ? DARK : LIGHT;
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Create a light frame with a single barcode in the center.
+     *
+     * @param width  of the frame
+     * @param height of the frame
+     * @param format of the barcode
+     * @param text   to encode
+     *
+     * @return Y data
+     */
+    @NonNull
+    static byte[] barcode(final int width,
+                          final int height,
+                          @NonNull final BarcodeFormat format,
+                          @NonNull final String text) {
+        final byte[] data = blank(width, height, LIGHT & 0xff);
+        final int size = Math.min(width, height) / 2;
+        final int codeWidth = format == BarcodeFormat.QR_CODE ? size : width / 2;
+        final int codeHeight = format == BarcodeFormat.QR_CODE ? size : height / 4;
+        return draw(data, width, format, text,
+                    (width - codeWidth) / 2, (height - codeHeight) / 2, codeWidth, codeHeight);
+    }
+
+    /**
+     * Invert a frame in place; i.e. a light barcode on a dark background.
+     *
+     * @param data Y data
+     *
+     * @return the same Y data
+     */
+    @NonNull
+    static byte[] invert(@NonNull final byte[] data) {
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (255 - (data[i] & 0xff));
+        }
+        return data;
+    }
+
+    /**
+     * Blur a frame with a box filter; i.e. an out of focus camera.
+     *
+     * @param data   Y data
+     * @param width  of the frame
+     * @param height of the frame
+     * @param radius of the box; the box is {@code 2 * radius + 1} pixels wide and high
+     *
+     * @return new Y data
+     */
+    @NonNull
+    static byte[] blur(@NonNull final byte[] data,
+                       final int width,
+                       final int height,
+                       final int radius) {
+        final byte[] blurred = new byte[data.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int sum = 0;
+                int count = 0;
+                for (int yy = Math.max(0, y - radius);
+                     yy <= Math.min(height - 1, y + radius); yy++) {
+                    for (int xx = Math.max(0, x - radius);
+                         xx <= Math.min(width - 1, x + radius); xx++) {
+                        sum += data[yy * width + xx] & 0xff;
+                        count++;
+                    }
+                }
+                blurred[y * width + x] = (byte) (sum / count);
+            }
+        }
+        return blurred;
+    }
+
+    /**
+     * Wrap the Y data.
+     *
+     * @param data   Y data
+     * @param width  of the frame
+     * @param height of the frame
+     *
+     * @return source
+     */
+    @NonNull
+    static SimpleLuminanceSource source(@NonNull final byte[] data,
+                                        final int width,
+                                        final int height) {
+        return new SimpleLuminanceSource(data, width, height, width, 1);
+    }
+}
@@ -0,0 +1,142 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrackingDecoderTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int CODE_SIZE = 120;
+    private static final int CODE_TOP = 150;
+    private static final String TEXT = "tracking";
+
+    /** Records the size of each decoded source. */
+    private static final class RecordingDecoder
+            implements Decoder {
+
+        @NonNull
+        private final Decoder decoder;
+        @NonNull
+        final List<int[]> sizes = new ArrayList<>();
+
+        RecordingDecoder() {
+            final Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+            hints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.of(BarcodeFormat.QR_CODE));
+            decoder = new DefaultDecoderFactory(hints).createDecoder();
+        }
+
+        @Override
+        @Nullable
+        public Result decode(@NonNull final LuminanceSource source) {
+            sizes.add(new int[]{source.getWidth(), source.getHeight()});
+            return decoder.decode(source);
+        }
+
+        @Override
+        @NonNull
+        public List<ResultPoint> getPossibleResultPoints() {
+            return decoder.getPossibleResultPoints();
+        }
+
+        boolean isFullFrame(final int index) {
+            return sizes.get(index)[0] == WIDTH && sizes.get(index)[1] == HEIGHT;
+        }
+    }
+
+    @NonNull
+    private static LuminanceSource frameWithCodeAt(final int left) {
+        final byte[] data = TestFrames.blank(WIDTH, HEIGHT, TestFrames.LIGHT & 0xff);
+        TestFrames.draw(data, WIDTH, BarcodeFormat.QR_CODE, TEXT,
+                        left, CODE_TOP, CODE_SIZE, CODE_SIZE);
+        return TestFrames.source(data, WIDTH, HEIGHT);
+    }
+
+    @Test
+    void quantize() {
+        assertEquals(64, TrackingDecoder.quantize(1, WIDTH));
+        assertEquals(64, TrackingDecoder.quantize(64, WIDTH));
+        assertEquals(128, TrackingDecoder.quantize(65, WIDTH));
+        assertEquals(HEIGHT, TrackingDecoder.quantize(470, HEIGHT));
+    }
+
+    @Test
+    void tracksAMovingBarcode() {
+        final RecordingDecoder recorder = new RecordingDecoder();
+        final TrackingDecoder decoder = new TrackingDecoder(recorder);
+
+        final Set<Integer> cropSizes = new HashSet<>();
+        for (int frame = 1; frame <= 20; frame++) {
+            final int left = 100 + 6 * frame;
+            final Result result = decoder.decode(frameWithCodeAt(left));
+
+            assertNotNull(result, "frame " + frame);
+            assertEquals(TEXT, result.getText());
+            // The points are in full frame coordinates
+            for (final ResultPoint point : result.getResultPoints()) {
+                assertTrue(point.getX() >= left && point.getX() <= left + CODE_SIZE,
+                           "frame " + frame + ": " + point);
+                assertTrue(point.getY() >= CODE_TOP && point.getY() <= CODE_TOP + CODE_SIZE,
+                           "frame " + frame + ": " + point);
+            }
+
+            final int[] size = recorder.sizes.get(frame - 1);
+            if (frame == 1 || frame % TrackingDecoder.DEFAULT_FULL_FRAME_INTERVAL == 0) {
+                assertTrue(recorder.isFullFrame(frame - 1), "frame " + frame);
+            } else {
+                assertTrue(size[0] < WIDTH, "frame " + frame);
+                assertEquals(0, size[0] % TrackingDecoder.CROP_GRANULARITY);
+                assertEquals(0, size[1] % TrackingDecoder.CROP_GRANULARITY);
+                cropSizes.add(size[0] * HEIGHT + size[1]);
+            }
+        }
+        // The binarizer storage is reused for the crops
+        assertEquals(1, cropSizes.size());
+    }
+
+    @Test
+    void losesTheTrack() {
+        final RecordingDecoder recorder = new RecordingDecoder();
+        final TrackingDecoder decoder = new TrackingDecoder(recorder);
+
+        assertNotNull(decoder.decode(frameWithCodeAt(200)));
+        final LuminanceSource blank = TestFrames.source(
+                TestFrames.blank(WIDTH, HEIGHT, TestFrames.LIGHT & 0xff), WIDTH, HEIGHT);
+        for (int i = 0; i < TrackingDecoder.DEFAULT_MAX_MISSES; i++) {
+            assertNull(decoder.decode(blank));
+        }
+        assertNull(decoder.decode(blank));
+
+        // found, the crops until the track is lost and the full frame in the same call,
+        // then only full frames
+        assertEquals(2 + TrackingDecoder.DEFAULT_MAX_MISSES + 1, recorder.sizes.size());
+        assertTrue(recorder.isFullFrame(0));
+        for (int i = 1; i <= TrackingDecoder.DEFAULT_MAX_MISSES; i++) {
+            assertFalse(recorder.isFullFrame(i), "decode " + i);
+        }
+        assertTrue(recorder.isFullFrame(TrackingDecoder.DEFAULT_MAX_MISSES + 1));
+        assertTrue(recorder.isFullFrame(TrackingDecoder.DEFAULT_MAX_MISSES + 2));
+    }
+}
@@ -0,0 +1,88 @@
+package com.hardbacknutter.tinyzxingwrapper.scanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Result;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.oned.Code128Reader;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransposedLuminanceSourceTest {
+
+    /** 3 wide, 2 high. */
+    private static final byte[] DATA = {
+            1, 2, 3,
+            4, 5, 6
+    };
+
+    @Test
+    void swapsTheDimensions() {
+        final TransposedLuminanceSource source =
+                new TransposedLuminanceSource(TestFrames.source(DATA, 3, 2));
+        assertEquals(2, source.getWidth());
+        assertEquals(3, source.getHeight());
+    }
+
+    @Test
+    void rowsAreColumns() {
+        final TransposedLuminanceSource source =
+                new TransposedLuminanceSource(TestFrames.source(DATA, 3, 2));
+        assertArrayEquals(new byte[]{1, 4}, source.getRow(0, null));
+        assertArrayEquals(new byte[]{3, 6}, source.getRow(2, null));
+
+        final byte[] row = new byte[4];
+        assertSame(row, source.getRow(1, row));
+        assertArrayEquals(new byte[]{2, 5, 0, 0}, row);
+
+        assertThrows(IllegalArgumentException.class, () -> source.getRow(3, null));
+    }
+
+    @Test
+    void matrixIsTransposedAndCached() {
+        final TransposedLuminanceSource source =
+                new TransposedLuminanceSource(TestFrames.source(DATA, 3, 2));
+        final byte[] matrix = source.getMatrix();
+        assertArrayEquals(new byte[]{1, 4, 2, 5, 3, 6}, matrix);
+        assertSame(matrix, source.getMatrix());
+    }
+
+    @Test
+    void transposingTwiceIsTheOriginal() {
+        final byte[] data = TestFrames.noise(31, 17, 1);
+        final TransposedLuminanceSource twice = new TransposedLuminanceSource(
+                new TransposedLuminanceSource(TestFrames.source(data, 31, 17)));
+        assertEquals(31, twice.getWidth());
+        assertEquals(17, twice.getHeight());
+        assertArrayEquals(data, twice.getMatrix());
+    }
+
+    @Test
+    void decodesAVerticalBarcode()
+            throws Exception {
+        // A horizontal barcode, transposed into a portrait frame
+        final int width = 640;
+        final int height = 480;
+        final byte[] horizontal = TestFrames.barcode(width, height, BarcodeFormat.CODE_128,
+                                                     "transposed");
+        final byte[] vertical = new TransposedLuminanceSource(
+                TestFrames.source(horizontal, width, height)).getMatrix();
+
+        // Scanning the rows of the portrait frame finds nothing
+        assertThrows(NotFoundException.class, () -> new Code128Reader().decode(
+                new BinaryBitmap(new GlobalHistogramBinarizer(
+                        TestFrames.source(vertical, height, width)))));
+
+        // ... but its columns, through the transpose, contain the barcode
+        final Result result = new Code128Reader().decode(new BinaryBitmap(
+                new GlobalHistogramBinarizer(new TransposedLuminanceSource(
+                        TestFrames.source(vertical, height, width)))));
+        assertEquals("transposed", result.getText());
+    }
+}
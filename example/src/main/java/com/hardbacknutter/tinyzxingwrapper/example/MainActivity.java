@@ -19,6 +19,7 @@ import com.hardbacknutter.tinyzxingwrapper.ScanContract;
 import com.hardbacknutter.tinyzxingwrapper.ScanIntentResult;
 import com.hardbacknutter.tinyzxingwrapper.ScanOptions;
 import com.hardbacknutter.tinyzxingwrapper.example.databinding.ActivityMainBinding;
+import com.hardbacknutter.tinyzxingwrapper.scanner.AnalysisResolution;
 import com.hardbacknutter.tinyzxingwrapper.scanner.BarcodeFamily;
 
 public class MainActivity
@@ -86,7 +87,8 @@ public class MainActivity
 
     private void scanProduct(@NonNull final View view) {
         final ScanOptions options = new ScanOptions()
-                .setBarcodeFormats(BarcodeFamily.PRODUCT);
+                .setBarcodeFormats(BarcodeFamily.PRODUCT)
+                .setAnalysisResolution(AnalysisResolution.forFormats(BarcodeFamily.PRODUCT));
         barcodeLauncher.launch(options);
     }
 